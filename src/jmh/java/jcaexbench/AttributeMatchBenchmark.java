@@ -0,0 +1,46 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.GenericCAEXObject;
+import org.fd.jcaex.ValidationMode;
+import org.fd.jcaex.filter.CAEXFilter;
+import org.fd.jcaex.filter.FilterCriteria;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching attribute values of 1M attributes with compiled criteria.
+ * Type is matched as a literal, Attr_1.* as a prefix, Typ[e] and Attr_1[0-9]* need regular expressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class AttributeMatchBenchmark {
+
+    @Param({ "Type", "Typ[e]", "Attr_1.*", "Attr_1[0-9]*" })
+    String value;
+
+    @Param({ "1000000" })
+    int attributeCount;
+
+    GenericCAEXObject internalElement;
+    FilterCriteria criteria;
+
+    @Setup
+    public void setUp() throws Exception {
+        GenericCAEXObject root = new CAEXReader().withValidationMode(ValidationMode.NONE).readGeneric(SampleModels.writeAttributes2_15(attributeCount));
+
+        internalElement = CAEXFilter.applyFilter(root, "InternalElement", true).get(0);
+        criteria = FilterCriteria.compile("Attribute[Name='" + value + "']");
+    }
+
+    @Benchmark
+    public List<GenericCAEXObject> match() {
+        return CAEXFilter.applyFilter(internalElement, criteria, false);
+    }
+}
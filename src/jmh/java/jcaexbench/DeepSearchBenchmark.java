@@ -0,0 +1,65 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.GenericCAEXObject;
+import org.fd.jcaex.ValidationMode;
+import org.fd.jcaex.filter.CAEXFilter;
+import org.fd.jcaex.filter.FilterCriteria;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deep searches on a tree of about 1M generic objects with internal elements nested 10 levels deep.
+ * The single pass search of CAEXFilter is compared with the level by level search it replaced,
+ * which concatenated the result lists of every level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class DeepSearchBenchmark {
+
+    GenericCAEXObject root;
+    FilterCriteria criteria;
+
+    @Setup
+    public void setUp() throws Exception {
+        // 122 top level elements with 1023 internal elements each, 8 generic objects per internal element
+        root = new CAEXReader().withValidationMode(ValidationMode.NONE).readGeneric(SampleModels.writeCaex2_15(122, 9));
+        criteria = FilterCriteria.compile("Attribute[Name='Type']");
+    }
+
+    @Benchmark
+    public List<GenericCAEXObject> singlePass() {
+        return CAEXFilter.applyFilter(root, criteria, true);
+    }
+
+    @Benchmark
+    public List<GenericCAEXObject> levelByLevel() {
+        return levelByLevel(root);
+    }
+
+    private static List<GenericCAEXObject> levelByLevel(GenericCAEXObject rootObject) {
+        List<GenericCAEXObject> res = new ArrayList<>();
+        int childCount = rootObject.childCount();
+
+        for (int i = 0; i < childCount; i++) {
+            GenericCAEXObject item = rootObject.childAt(i);
+
+            if ("Attribute".equals(item.getElementName())) {
+                res.add(item);
+            }
+
+            res.addAll(levelByLevel(item));
+        }
+
+        res.removeIf(obj -> !obj.getAttributes().containsKey("Name") || !"Type".equals(obj.getAttribute("Name")));
+
+        return res;
+    }
+}
@@ -0,0 +1,50 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.ColumnarCAEXModel;
+import org.fd.jcaex.GenericCAEXObject;
+import org.fd.jcaex.ValidationMode;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Prints the heap footprint of generic object trees measured with JOL, e.g.: gradle footprint
+ * <p>
+ * The tree is read from a stream, so it references neither typed objects nor the source file.
+ * The footprint of the columnar model of the same file is printed for comparison.
+ * </p>
+ */
+public class FootprintReport {
+
+    public static void main(String[] args) throws Exception {
+        int elementCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Path path = SampleModels.writeCaex2_15(elementCount, depth);
+        GenericCAEXObject root;
+
+        try (InputStream is = Files.newInputStream(path)) {
+            root = new CAEXReader().withValidationMode(ValidationMode.NONE).readGeneric(is);
+        }
+
+        GraphLayout layout = GraphLayout.parseInstance(root);
+        long nodeCount = layout.getClassCounts().count(GenericCAEXObject.class);
+
+        System.out.println(layout.toFootprint());
+        System.out.printf("Generic tree: %,d bytes, %,d nodes, %,d bytes/node%n", layout.totalSize(), nodeCount, layout.totalSize() / nodeCount);
+
+        ColumnarCAEXModel model;
+
+        try (InputStream is = Files.newInputStream(path)) {
+            model = new CAEXReader().withValidationMode(ValidationMode.NONE).readColumnar(is);
+        }
+
+        long heapSize = GraphLayout.parseInstance(model).totalSize();
+
+        System.out.printf("Columnar model: %,d bytes on heap, %,d bytes off-heap, %,d nodes, %,d bytes/node%n",
+                heapSize, model.offHeapBytes(), model.size(), (heapSize + model.offHeapBytes()) / model.size());
+    }
+}
@@ -0,0 +1,48 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXFile;
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.GenericCAEXObject;
+import org.fd.jcaex.ValidationMode;
+import org.fd.jcaex.filter.CAEXFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generalizing an already unmarshalled CAEX file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneralizeBenchmark {
+
+    @Param({ "false", "true" })
+    boolean lazy;
+
+    CAEXFile caexFile;
+
+    @Setup
+    public void setUp() throws Exception {
+        caexFile = new CAEXReader().withValidationMode(ValidationMode.NONE).read(SampleModels.writeCaex2_15(1000, 3));
+    }
+
+    @Benchmark
+    public GenericCAEXObject generalize() {
+        return GenericCAEXObject.from(caexFile, lazy);
+    }
+
+    /**
+     * Query touching only the top level internal elements of the instance hierarchy.
+     */
+    @Benchmark
+    public Object queryTopLevelElements() {
+        List<GenericCAEXObject> hierarchies = CAEXFilter.forObject(caexFile, lazy).children().element("InstanceHierarchy").execute();
+
+        return hierarchies.get(0).getChildren("InternalElement");
+    }
+}
@@ -0,0 +1,40 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.GenericCAEXObject;
+import org.fd.jcaex.ValidationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares unmarshalling and generalizing a CAEX file with building the generic tree straight from the document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenericReadBenchmark {
+
+    Path file;
+    CAEXReader reader;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = SampleModels.writeCaex2_15(1000, 3);
+        reader = new CAEXReader().withValidationMode(ValidationMode.NONE);
+    }
+
+    @Benchmark
+    public GenericCAEXObject unmarshalAndGeneralize() throws Exception {
+        return reader.read(file).generalize();
+    }
+
+    @Benchmark
+    public GenericCAEXObject buildFromStream() throws Exception {
+        return reader.readGeneric(file);
+    }
+}
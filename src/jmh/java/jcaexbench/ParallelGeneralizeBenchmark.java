@@ -0,0 +1,47 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXFile;
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.GenericCAEXObject;
+import org.fd.jcaex.ValidationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scaling of parallel generalization with the number of threads of the pool.
+ * Parallelism 0 generalizes serially.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelGeneralizeBenchmark {
+
+    @Param({ "0", "1", "2", "4", "8", "16", "32" })
+    int parallelism;
+
+    CAEXFile caexFile;
+    ForkJoinPool pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        caexFile = new CAEXReader().withValidationMode(ValidationMode.NONE).read(SampleModels.writeCaex2_15(4000, 4));
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public GenericCAEXObject generalize() {
+        return pool != null ? GenericCAEXObject.from(caexFile, pool) : caexFile.generalize();
+    }
+}
@@ -0,0 +1,43 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXFile;
+import org.fd.jcaex.CAEXReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading small CAEX files with a freshly built JAXB context and schema per file
+ * (the former behavior of the static read method) against reading them with a shared CAEXReader.
+ * <p>
+ * Run with several threads (e.g. -t 4) to measure concurrent throughput.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+    File file;
+    CAEXReader sharedReader;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = SampleModels.writeCaex2_15(20, 1).toFile();
+        sharedReader = new CAEXReader();
+    }
+
+    @Benchmark
+    public CAEXFile freshContextPerRead() throws Exception {
+        return new CAEXReader(1).read(file);
+    }
+
+    @Benchmark
+    public CAEXFile sharedReader() throws Exception {
+        return sharedReader.read(file);
+    }
+}
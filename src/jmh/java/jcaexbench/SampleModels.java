@@ -0,0 +1,102 @@
+package jcaexbench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generator of synthetic CAEX documents used by the benchmarks.
+ */
+final class SampleModels {
+
+    private SampleModels() { }
+
+    /**
+     * Generates a CAEX v2.15 document with a single instance hierarchy.
+     *
+     * @param elementCount Number of top level internal elements.
+     * @param depth Nesting depth of internal elements below each top level element (0 = no nesting).
+     * @return Document contents.
+     */
+    static String caex2_15(int elementCount, int depth) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+                .append("<CAEXFile xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" FileName=\"Bench.aml\" SchemaVersion=\"2.15\" xsi:noNamespaceSchemaLocation=\"CAEX_ClassModel_V2.15.xsd\">\n")
+                .append("  <InstanceHierarchy Name=\"Bench\">\n");
+
+        for (int i = 0; i < elementCount; i++) {
+            appendInternalElement(sb, "IE_" + i, depth);
+        }
+
+        sb.append("  </InstanceHierarchy>\n")
+                .append("</CAEXFile>\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes a generated CAEX v2.15 document into a temporary file which is deleted on exit.
+     *
+     * @param elementCount Number of top level internal elements.
+     * @param depth Nesting depth of internal elements below each top level element.
+     * @return Path of the file.
+     * @throws IOException if the file can't be written.
+     */
+    static Path writeCaex2_15(int elementCount, int depth) throws IOException {
+        Path res = Files.createTempFile("jcaexbench_", ".aml");
+        res.toFile().deleteOnExit();
+
+        return Files.writeString(res, caex2_15(elementCount, depth), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a generated CAEX v2.15 document with a single internal element having many attributes into a temporary file.
+     * Every tenth attribute is named Type, the others are named Attr_0 ... Attr_99.
+     *
+     * @param attributeCount Number of attributes.
+     * @return Path of the file.
+     * @throws IOException if the file can't be written.
+     */
+    static Path writeAttributes2_15(int attributeCount) throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+                .append("<CAEXFile FileName=\"Bench.aml\" SchemaVersion=\"2.15\">\n")
+                .append("  <InstanceHierarchy Name=\"Bench\">\n")
+                .append("<InternalElement ID=\"IE\" Name=\"IE\">\n");
+
+        for (int i = 0; i < attributeCount; i++) {
+            sb.append("<Attribute Name=\"").append(i % 10 == 0 ? "Type" : "Attr_" + i % 100).append("\"/>\n");
+        }
+
+        sb.append("</InternalElement>\n")
+                .append("  </InstanceHierarchy>\n")
+                .append("</CAEXFile>\n");
+
+        Path res = Files.createTempFile("jcaexbench_", ".aml");
+        res.toFile().deleteOnExit();
+
+        return Files.writeString(res, sb, StandardCharsets.UTF_8);
+    }
+
+    private static void appendInternalElement(StringBuilder sb, String name, int depth) {
+        sb.append("<InternalElement ID=\"").append(name).append("\" Name=\"").append(name).append("\">\n")
+                .append("<Attribute Name=\"TypeName\" AttributeDataType=\"xs:string\"><Value>Rail</Value></Attribute>\n")
+                .append("<Attribute Name=\"PositionNumber\" AttributeDataType=\"xs:int\"><Value>").append(name.length()).append("</Value></Attribute>\n")
+                .append("<Attribute Name=\"BuiltIn\" AttributeDataType=\"xs:boolean\"><Value>false</Value></Attribute>\n")
+                .append("<ExternalInterface ID=\"").append(name).append("_DI\" Name=\"Channel_DI\" RefBaseClassPath=\"Lib/Channel\">\n")
+                .append("<Attribute Name=\"Type\" AttributeDataType=\"xs:string\"><Value>Digital</Value></Attribute>\n")
+                .append("<Attribute Name=\"IoType\" AttributeDataType=\"xs:string\"><Value>Input</Value></Attribute>\n")
+                .append("</ExternalInterface>\n");
+
+        if (depth > 0) {
+            appendInternalElement(sb, name + "_0", depth - 1);
+            appendInternalElement(sb, name + "_1", depth - 1);
+        }
+
+        sb.append("<SupportedRoleClass RefRoleClassPath=\"Lib/DeviceItem\"/>\n")
+                .append("</InternalElement>\n");
+    }
+}
@@ -0,0 +1,38 @@
+package jcaexbench;
+
+import org.fd.jcaex.CAEXFile;
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.ValidationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading a larger CAEX file in each validation mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationModeBenchmark {
+
+    @Param({"STRICT", "PARALLEL", "NONE"})
+    ValidationMode validationMode;
+
+    Path file;
+    CAEXReader reader;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = SampleModels.writeCaex2_15(1000, 3);
+        reader = new CAEXReader().withValidationMode(validationMode);
+    }
+
+    @Benchmark
+    public CAEXFile read() throws Exception {
+        return reader.read(file);
+    }
+}
@@ -0,0 +1,321 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.JAXBException;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Class of an AutomationML container (.amlx).
+ * <p>
+ * An AutomationML container is an OPC (ZIP) package holding the root CAEX document and the libraries it references.
+ * Documents are parsed straight from the compressed entries of the package, without extracting them to disk.
+ * The root document and each library are parsed only when they are first accessed, then they are cached
+ * for the lifetime of the container object.
+ * </p>
+ * <p>
+ * The root document and libraries are located through the relationships of the package (_rels/*.rels).
+ * If the package doesn't define a root document relationship, the first .aml entry of the top level directory
+ * is the root document, and if no library relationships are defined, every other .aml entry is a library.
+ * </p>
+ */
+public class AMLXContainer implements AutoCloseable {
+
+    static final String RELATIONSHIP_ROOT_DOCUMENT = "http://schemas.automationml.org/container/relationship/RootDocument";
+    static final String RELATIONSHIP_LIBRARY = "http://schemas.automationml.org/container/relationship/Library";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    private final ZipFile zipFile;
+    private final URI containerUri;
+    private final CAEXReader reader;
+    private final String rootDocumentName;
+    private final List<String> libraryNames;
+    private final ConcurrentMap<String, FutureTask<CAEXFile>> documents = new ConcurrentHashMap<>();
+
+    private AMLXContainer(Path path, CAEXReader reader) throws IOException, CAEXFileParseException {
+        this.zipFile = new ZipFile(path.toFile());
+        this.containerUri = path.toUri();
+        this.reader = reader;
+
+        try {
+            List<String> amlEntries = new ArrayList<>();
+            List<ZipEntry> relsEntries = new ArrayList<>();
+
+            zipFile.stream().filter(e -> !e.isDirectory()).forEach(e -> {
+                String name = e.getName().toLowerCase(Locale.ROOT);
+
+                if (name.endsWith(".aml")) {
+                    amlEntries.add(e.getName());
+                } else if (name.endsWith(".rels")) {
+                    relsEntries.add(e);
+                }
+            });
+
+            String root = null;
+            Set<String> libraries = new LinkedHashSet<>();
+
+            for (ZipEntry relsEntry : relsEntries) {
+                for (String[] relationship : readRelationships(relsEntry)) {
+                    String target = resolveTarget(relsEntry.getName(), relationship[1]);
+
+                    if (RELATIONSHIP_ROOT_DOCUMENT.equals(relationship[0]) && root == null) {
+                        root = target;
+                    } else if (RELATIONSHIP_LIBRARY.equals(relationship[0])) {
+                        libraries.add(target);
+                    }
+                }
+            }
+
+            if (root == null) {
+                root = amlEntries.stream().filter(n -> !n.contains("/")).findFirst()
+                        .orElse(amlEntries.isEmpty() ? null : amlEntries.get(0));
+            }
+
+            if (root == null || zipFile.getEntry(root) == null) {
+                throw new CAEXFileParseException("Container format error: root document not found in '" + path + "'.");
+            }
+
+            if (libraries.isEmpty()) {
+                libraries.addAll(amlEntries);
+            }
+
+            libraries.remove(root);
+
+            this.rootDocumentName = root;
+            this.libraryNames = List.copyOf(libraries);
+        } catch (IOException | CAEXFileParseException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an AutomationML container using the shared {@link CAEXReader}.
+     *
+     * @param path Path of the container file.
+     * @return Newly opened container object.
+     * @throws IOException if the container can't be opened.
+     * @throws CAEXFileParseException if the container doesn't contain a root document.
+     * @throws JAXBException if the shared reader can't be created.
+     * @throws SAXException if the shared reader can't be created.
+     */
+    public static AMLXContainer open(Path path) throws IOException, CAEXFileParseException, JAXBException, SAXException {
+        return open(path, CAEXReader.getDefault());
+    }
+
+    /**
+     * Opens an AutomationML container.
+     *
+     * @param path Path of the container file.
+     * @param reader Reader used for parsing documents of the container.
+     * @return Newly opened container object.
+     * @throws IOException if the container can't be opened.
+     * @throws CAEXFileParseException if the container doesn't contain a root document.
+     */
+    public static AMLXContainer open(Path path, CAEXReader reader) throws IOException, CAEXFileParseException {
+        return new AMLXContainer(path, reader);
+    }
+
+    /**
+     * Gets entry name of the root document.
+     *
+     * @return Name of the ZIP entry.
+     */
+    public String getRootDocumentName() {
+        return rootDocumentName;
+    }
+
+    /**
+     * Gets entry names of the libraries.
+     *
+     * @return List of ZIP entry names.
+     */
+    public List<String> getLibraryNames() {
+        return libraryNames;
+    }
+
+    /**
+     * Gets the root document. It's parsed on first access.
+     *
+     * @return Object of the root CAEX document.
+     * @throws IOException if the entry can't be read.
+     * @throws CAEXFileParseException if the entry isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the entry doesn't conform to its CAEX schema.
+     */
+    public CAEXFile getRootDocument() throws IOException, CAEXFileParseException, JAXBException {
+        return getDocument(rootDocumentName);
+    }
+
+    /**
+     * Gets a library. It's parsed on first access.
+     *
+     * @param name Entry name of the library.
+     * @return Object of the CAEX document of the library.
+     * @throws IOException if the entry can't be read.
+     * @throws CAEXFileParseException if the entry isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the entry doesn't conform to its CAEX schema.
+     */
+    public CAEXFile getLibrary(String name) throws IOException, CAEXFileParseException, JAXBException {
+        if (!libraryNames.contains(name)) {
+            throw new IllegalArgumentException("No library '" + name + "' in container '" + containerUri + "'");
+        }
+
+        return getDocument(name);
+    }
+
+    /**
+     * Gets a CAEX document of the container. It's parsed on first access.
+     * Concurrent callers of the same document wait for a single parse.
+     *
+     * @param name Entry name of the document.
+     * @return Object of the CAEX document.
+     */
+    private CAEXFile getDocument(String name) throws IOException, CAEXFileParseException, JAXBException {
+        FutureTask<CAEXFile> task = new FutureTask<>(() -> parseEntry(name));
+        FutureTask<CAEXFile> existing = documents.putIfAbsent(name, task);
+
+        if (existing == null) {
+            task.run();
+        } else {
+            task = existing;
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Failed documents aren't cached, a later call tries again
+            documents.remove(name, task);
+
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof CAEXFileParseException) {
+                throw (CAEXFileParseException) cause;
+            } else if (cause instanceof JAXBException) {
+                throw (JAXBException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for document '" + name + "'", e);
+        }
+    }
+
+    /**
+     * Parses a CAEX document straight from the compressed stream of its entry.
+     *
+     * @param name Entry name of the document.
+     * @return Object of the CAEX document.
+     */
+    private CAEXFile parseEntry(String name) throws IOException, CAEXFileParseException, JAXBException {
+        ZipEntry entry = zipFile.getEntry(name);
+
+        if (entry == null) {
+            throw new CAEXFileParseException("Container format error: entry '" + name + "' not found.");
+        }
+
+        try (InputStream is = zipFile.getInputStream(entry)) {
+            return reader.read(is, "jar:" + containerUri + "!/" + name);
+        }
+    }
+
+    /**
+     * Reads relationships of a relationship part.
+     *
+     * @param relsEntry Entry of the relationship part.
+     * @return List of [type, target] pairs.
+     */
+    private List<String[]> readRelationships(ZipEntry relsEntry) throws IOException, CAEXFileParseException {
+        List<String[]> res = new ArrayList<>();
+
+        try (InputStream is = zipFile.getInputStream(relsEntry)) {
+            XMLStreamReader xmlReader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+
+            try {
+                while (xmlReader.hasNext()) {
+                    if (xmlReader.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(xmlReader.getLocalName())) {
+                        String type = xmlReader.getAttributeValue(null, "Type");
+                        String target = xmlReader.getAttributeValue(null, "Target");
+
+                        if (type != null && target != null) {
+                            res.add(new String[] { type, target });
+                        }
+                    }
+                }
+            } finally {
+                xmlReader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new CAEXFileParseException("Container format error: invalid relationship part '" + relsEntry.getName() + "'.", e);
+        }
+
+        return res;
+    }
+
+    /**
+     * Resolves target of a relationship to an entry name.
+     * Relative targets are relative to the directory of the source part of the relationship part.
+     * Targets are percent-encoded URIs as defined by OPC.
+     *
+     * @param relsEntryName Entry name of the relationship part (e.g. dir/_rels/doc.aml.rels).
+     * @param target Target of the relationship.
+     * @return Entry name of the target.
+     */
+    static String resolveTarget(String relsEntryName, String target) throws CAEXFileParseException {
+        // Source part of dir/_rels/doc.aml.rels is dir/doc.aml, so relative targets are relative to dir/
+        int relsDirIdx = relsEntryName.lastIndexOf("_rels/");
+        String sourceDir = relsDirIdx >= 0 ? relsEntryName.substring(0, relsDirIdx) : "";
+
+        try {
+            String res = new URI(null, null, "/" + sourceDir, null).resolve(new URI(target)).normalize().getPath();
+
+            return res.startsWith("/") ? res.substring(1) : res;
+        } catch (URISyntaxException e) {
+            throw new CAEXFileParseException("Container format error: invalid relationship target '" + target + "'.", e);
+        }
+    }
+
+    /**
+     * Closes the container. Already parsed documents remain usable.
+     *
+     * @throws IOException if the underlying ZIP file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+
+    @Override
+    public String toString() {
+        return "AMLXContainer{" +
+                "container='" + containerUri + '\'' +
+                ", rootDocument='" + rootDocumentName + '\'' +
+                ", libraries=" + libraryNames +
+                '}';
+    }
+}
@@ -0,0 +1,235 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.DatatypeConverter;
+
+import java.util.Set;
+
+/**
+ * Value of a CAEX attribute parsed according to its AttributeDataType.
+ * <p>
+ * Numeric, boolean and date-time values are kept in primitive form, so reading them doesn't parse or box anything.
+ * Values are parsed once, when the document is read by a reader with typed attribute values
+ * (see {@link CAEXReader#withTypedAttributeValues(boolean)}).
+ * </p>
+ */
+public final class AttributeValue {
+
+    /**
+     * Type of a parsed value.
+     */
+    public enum Type {
+        /**
+         * Text (xs:string and any data type without a primitive form, e.g. xs:integer or xs:unsignedLong,
+         * whose values may not fit into a long, and xs:decimal, whose values may not be exact as a double).
+         */
+        STRING,
+
+        /**
+         * Integer number (xs:long, xs:int, xs:short, xs:byte, xs:unsignedInt, xs:unsignedShort, xs:unsignedByte).
+         */
+        INTEGER,
+
+        /**
+         * Floating point number (xs:double, xs:float).
+         */
+        DOUBLE,
+
+        /**
+         * Boolean value (xs:boolean).
+         */
+        BOOLEAN,
+
+        /**
+         * Point of time (xs:dateTime), kept as milliseconds since the epoch.
+         */
+        DATE_TIME
+    }
+
+    // Integer types whose values always fit into a long
+    private static final Set<String> INTEGER_TYPES = Set.of("long", "int", "short", "byte",
+            "unsignedInt", "unsignedShort", "unsignedByte");
+
+    private static final Set<String> DOUBLE_TYPES = Set.of("double", "float");
+
+    private final Type type;
+    private final String text;
+
+    // Integer, boolean (0/1) and date-time values as they are, doubles as their raw bits
+    private final long bits;
+
+    private AttributeValue(Type type, String text, long bits) {
+        this.type = type;
+        this.text = text;
+        this.bits = bits;
+    }
+
+    /**
+     * Gets type of values of an AttributeDataType.
+     *
+     * @param attributeDataType Data type in XML notation (e.g. xs:int), with or without a namespace prefix (may be null).
+     * @return Type of values.
+     */
+    public static Type typeOf(String attributeDataType) {
+        if (attributeDataType == null) {
+            return Type.STRING;
+        }
+
+        String localName = attributeDataType.substring(attributeDataType.indexOf(':') + 1).trim();
+
+        if (INTEGER_TYPES.contains(localName)) {
+            return Type.INTEGER;
+        }
+
+        if (DOUBLE_TYPES.contains(localName)) {
+            return Type.DOUBLE;
+        }
+
+        if (localName.equals("boolean")) {
+            return Type.BOOLEAN;
+        }
+
+        return localName.equals("dateTime") ? Type.DATE_TIME : Type.STRING;
+    }
+
+    /**
+     * Parses a value according to its AttributeDataType.
+     *
+     * @param attributeDataType Data type in XML notation (may be null).
+     * @param text Text of the value.
+     * @return Parsed value or null if the text is null or (for non-string types) blank.
+     * @throws IllegalArgumentException if the text isn't a valid value of the data type.
+     */
+    public static AttributeValue parse(String attributeDataType, String text) {
+        Type type = typeOf(attributeDataType);
+
+        if (text == null || (type != Type.STRING && text.isBlank())) {
+            return null;
+        }
+
+        String trimmed = text.trim();
+
+        try {
+            switch (type) {
+                case INTEGER:
+                    return new AttributeValue(type, text, Long.parseLong(trimmed));
+
+                case DOUBLE:
+                    return new AttributeValue(type, text, Double.doubleToRawLongBits(DatatypeConverter.parseDouble(trimmed)));
+
+                case BOOLEAN:
+                    if (trimmed.equals("true") || trimmed.equals("1")) {
+                        return new AttributeValue(type, text, 1);
+                    }
+
+                    if (trimmed.equals("false") || trimmed.equals("0")) {
+                        return new AttributeValue(type, text, 0);
+                    }
+
+                    throw new IllegalArgumentException("not a boolean");
+
+                case DATE_TIME:
+                    return new AttributeValue(type, text, DatatypeConverter.parseDateTime(trimmed).getTimeInMillis());
+
+                default:
+                    return new AttributeValue(type, text, 0);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Value '" + text + "' isn't a valid " + attributeDataType + " value", e);
+        }
+    }
+
+    /**
+     * Gets type of this value.
+     *
+     * @return Type of the value.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets text of this value as it's written in the document.
+     *
+     * @return Text of the value.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets an integer value as int.
+     *
+     * @return Value.
+     * @throws IllegalStateException if this isn't an integer value.
+     * @throws ArithmeticException if the value doesn't fit into an int.
+     */
+    public int getIntValue() {
+        return Math.toIntExact(getLongValue());
+    }
+
+    /**
+     * Gets an integer value as long.
+     *
+     * @return Value.
+     * @throws IllegalStateException if this isn't an integer value.
+     */
+    public long getLongValue() {
+        check(Type.INTEGER);
+
+        return bits;
+    }
+
+    /**
+     * Gets a floating point or integer value as double.
+     *
+     * @return Value.
+     * @throws IllegalStateException if this isn't a numeric value.
+     */
+    public double getDoubleValue() {
+        if (type == Type.INTEGER) {
+            return bits;
+        }
+
+        check(Type.DOUBLE);
+
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Gets a boolean value.
+     *
+     * @return Value.
+     * @throws IllegalStateException if this isn't a boolean value.
+     */
+    public boolean getBooleanValue() {
+        check(Type.BOOLEAN);
+
+        return bits != 0;
+    }
+
+    /**
+     * Gets a date-time value.
+     *
+     * @return Milliseconds since the epoch.
+     * @throws IllegalStateException if this isn't a date-time value.
+     */
+    public long getDateTimeValue() {
+        check(Type.DATE_TIME);
+
+        return bits;
+    }
+
+    private void check(Type expected) {
+        if (type != expected) {
+            throw new IllegalStateException("Value '" + text + "' is of type " + type + ", not " + expected);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeValue{" +
+                "type=" + type +
+                ", text='" + text + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,191 @@
+package org.fd.jcaex;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Class of the result of reading a batch of CAEX files.
+ * <p>
+ * Results of the individual files are kept in input order. A file which couldn't be read doesn't abort
+ * the batch, its error is stored in its result instead.
+ * </p>
+ */
+public class CAEXBatchResult {
+
+    /**
+     * Result of reading a single file of a batch.
+     */
+    public static class FileResult {
+
+        private final Path path;
+        private final long size;
+        private final long durationNanos;
+        private final CAEXFile caexFile;
+        private final Exception error;
+
+        FileResult(Path path, long size, long durationNanos, CAEXFile caexFile, Exception error) {
+            this.path = path;
+            this.size = size;
+            this.durationNanos = durationNanos;
+            this.caexFile = caexFile;
+            this.error = error;
+        }
+
+        /**
+         * Gets path of the file.
+         *
+         * @return Path of the file.
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Gets size of the file.
+         *
+         * @return Size of the file in bytes or -1 if it couldn't be determined.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets time spent on reading the file.
+         *
+         * @return Duration of reading.
+         */
+        public Duration getDuration() {
+            return Duration.ofNanos(durationNanos);
+        }
+
+        /**
+         * Gets the read CAEX file.
+         *
+         * @return Object of the CAEX file or null if reading failed.
+         */
+        public CAEXFile getCAEXFile() {
+            return caexFile;
+        }
+
+        /**
+         * Gets the error which occurred while reading the file.
+         *
+         * @return Exception object or null if reading succeeded.
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * Returns if the file has been read successfully.
+         *
+         * @return True if yes, otherwise false.
+         */
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return "FileResult{" +
+                    "path='" + path + '\'' +
+                    ", size=" + size +
+                    ", successful=" + isSuccessful() +
+                    (error != null ? ", error='" + error.getMessage() + '\'' : "") +
+                    '}';
+        }
+    }
+
+    private final List<FileResult> results;
+    private final long elapsedNanos;
+
+    CAEXBatchResult(List<FileResult> results, long elapsedNanos) {
+        this.results = List.copyOf(results);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets results of all files in input order.
+     *
+     * @return List of file results.
+     */
+    public List<FileResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Gets successfully read CAEX files in input order.
+     *
+     * @return List of CAEX files.
+     */
+    public List<CAEXFile> getCAEXFiles() {
+        return results.stream().filter(FileResult::isSuccessful).map(FileResult::getCAEXFile).collect(Collectors.toList());
+    }
+
+    /**
+     * Gets results of files which couldn't be read, in input order.
+     *
+     * @return List of failed file results.
+     */
+    public List<FileResult> getFailures() {
+        return results.stream().filter(r -> !r.isSuccessful()).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns if every file of the batch has been read successfully.
+     *
+     * @return True if yes, otherwise false.
+     */
+    public boolean isSuccessful() {
+        return results.stream().allMatch(FileResult::isSuccessful);
+    }
+
+    /**
+     * Gets wall-clock time of reading the whole batch.
+     *
+     * @return Elapsed time.
+     */
+    public Duration getElapsedTime() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * Gets total size of the successfully read files.
+     *
+     * @return Size in bytes.
+     */
+    public long getTotalBytes() {
+        return results.stream().filter(FileResult::isSuccessful).mapToLong(r -> Math.max(r.getSize(), 0)).sum();
+    }
+
+    /**
+     * Gets aggregate throughput of the batch in files.
+     *
+     * @return Number of files read per second (failed ones included).
+     */
+    public double getFilesPerSecond() {
+        return elapsedNanos > 0 ? results.size() * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Gets aggregate throughput of the batch in bytes.
+     *
+     * @return Number of bytes of successfully read files per second.
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos > 0 ? getTotalBytes() * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CAEXBatchResult{" +
+                "files=" + results.size() +
+                ", failures=" + getFailures().size() +
+                ", elapsed=" + getElapsedTime() +
+                ", filesPerSecond=" + String.format("%.1f", getFilesPerSecond()) +
+                ", bytesPerSecond=" + String.format("%.0f", getBytesPerSecond()) +
+                '}';
+    }
+}
@@ -5,4 +5,8 @@ public class CAEXFileParseException extends Exception {
     public CAEXFileParseException(String message) {
         super(message);
     }
+
+    public CAEXFileParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,136 @@
+package org.fd.jcaex;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class of a loaded CAEX library file.
+ * <p>
+ * Besides the CAEX file itself it holds an index of all classes of the file keyed by their CAEX path
+ * (e.g. AutomationMLBaseRoleClassLib/AutomationMLBaseRole/Resource), so class lookups are O(1).
+ * The index is built once, when the library is loaded.
+ * </p>
+ */
+public class CAEXLibrary {
+
+    /**
+     * Element names of the class libraries of a CAEX file.
+     */
+    static final List<String> LIBRARY_ELEMENTS = List.of("InterfaceClassLib", "RoleClassLib", "SystemUnitClassLib", "AttributeTypeLib");
+
+    /**
+     * Element names of classes within a class library.
+     */
+    static final List<String> CLASS_ELEMENTS = List.of("InterfaceClass", "RoleClass", "SystemUnitClass", "SystemUnitFamilyType", "AttributeType");
+
+    private final Path path;
+    private final CAEXFile caexFile;
+    private final Map<String, GenericCAEXObject> classes;
+
+    CAEXLibrary(Path path, CAEXFile caexFile) {
+        this.path = path;
+        this.caexFile = caexFile;
+        this.classes = Map.copyOf(indexClasses(caexFile.generalize()));
+    }
+
+    /**
+     * Gets canonical path of the library file.
+     *
+     * @return Path of the file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the CAEX file of the library.
+     *
+     * @return Object of the CAEX file.
+     */
+    public CAEXFile getCAEXFile() {
+        return caexFile;
+    }
+
+    /**
+     * Gets CAEX paths of all classes of the library.
+     *
+     * @return Set of class paths.
+     */
+    public Set<String> getClassPaths() {
+        return classes.keySet();
+    }
+
+    /**
+     * Looks up a class by its CAEX path.
+     *
+     * @param classPath Path of the class without alias (e.g. AutomationMLBaseRoleClassLib/AutomationMLBaseRole).
+     * @return Generic object of the class or null if no class exists with the given path.
+     */
+    public GenericCAEXObject lookup(String classPath) {
+        return classes.get(classPath);
+    }
+
+    /**
+     * Builds the path index of all classes of a CAEX file.
+     *
+     * @param root Generic object of the CAEX file.
+     * @return Map of class paths and class objects.
+     */
+    static Map<String, GenericCAEXObject> indexClasses(GenericCAEXObject root) {
+        Map<String, GenericCAEXObject> res = new HashMap<>();
+        Deque<Map.Entry<String, GenericCAEXObject>> stack = new ArrayDeque<>();
+
+        for (String libElement : LIBRARY_ELEMENTS) {
+            for (GenericCAEXObject lib : childList(root, libElement)) {
+                stack.push(Map.entry(pathSegment(lib), lib));
+            }
+        }
+
+        while (!stack.isEmpty()) {
+            Map.Entry<String, GenericCAEXObject> entry = stack.pop();
+
+            for (String classElement : CLASS_ELEMENTS) {
+                for (GenericCAEXObject cls : childList(entry.getValue(), classElement)) {
+                    String classPath = entry.getKey() + "/" + pathSegment(cls);
+
+                    res.putIfAbsent(classPath, cls);
+                    stack.push(Map.entry(classPath, cls));
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets a path segment of an object. Names containing path separators are enclosed in square brackets, as specified by CAEX 3.0.
+     *
+     * @param obj Generic CAEX object.
+     * @return Path segment.
+     */
+    private static String pathSegment(GenericCAEXObject obj) {
+        String name = String.valueOf(obj.getAttribute("Name"));
+
+        return name.contains("/") ? "[" + name + "]" : name;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<GenericCAEXObject> childList(GenericCAEXObject obj, String elementName) {
+        Object children = obj.getChildren(elementName);
+
+        return children instanceof List ? (List<GenericCAEXObject>) children : List.of();
+    }
+
+    @Override
+    public String toString() {
+        return "CAEXLibrary{" +
+                "path=" + path +
+                ", classes=" + classes.size() +
+                '}';
+    }
+}
@@ -0,0 +1,177 @@
+package org.fd.jcaex;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Generalized model of a loaded CAEX file.
+ * <p>
+ * Loading a model is opt-in: without a loaded model every call of {@link GeneralizableCAEXObject#generalize()}
+ * creates a fresh generic tree. While the model of a file is loaded (see {@link #load(CAEXFile)}), generalizing the file
+ * or any typed object inside it with {@link GeneralizableCAEXObject#generalize()}, and filters created for them,
+ * return objects of the same generic tree, so they can be compared by identity.
+ * {@link GenericCAEXObject#from(GeneralizableCAEXObject)} always creates a fresh tree.
+ * </p>
+ * <p>
+ * The tree is generalized lazily, and typed objects are mapped to their generic objects by identity
+ * as their groups are generalized. Looking up an object that isn't generalized yet generalizes the rest of the tree
+ * until the object is found. The tree reflects the state of the file when its groups were generalized,
+ * so close the model and load it again after modifying the file.
+ * </p>
+ */
+public final class CAEXModel implements AutoCloseable {
+
+    // Models of loaded files, usually none or a few
+    private static final List<CAEXModel> LOADED = new CopyOnWriteArrayList<>();
+
+    private final CAEXFile caexFile;
+    private final GenericCAEXObject root;
+    private final Map<Object, GenericCAEXObject> objects = new IdentityHashMap<>();
+
+    // Registered objects whose groups haven't been generalized by lookups yet
+    private final Deque<GenericCAEXObject> unexplored = new ArrayDeque<>();
+
+    private CAEXModel(CAEXFile caexFile) {
+        this.caexFile = caexFile;
+        this.root = GenericCAEXObject.from(caexFile, this);
+
+        register(root);
+    }
+
+    /**
+     * Loads the model of a CAEX file. Only the file object itself is generalized by this.
+     * The model stays loaded until it's closed.
+     *
+     * @param caexFile CAEX file.
+     * @return Model of the file (the one already loaded if there is any).
+     */
+    public static synchronized CAEXModel load(CAEXFile caexFile) {
+        for (CAEXModel model : LOADED) {
+            if (model.caexFile == caexFile) {
+                return model;
+            }
+        }
+
+        CAEXModel res = new CAEXModel(caexFile);
+        LOADED.add(res);
+
+        return res;
+    }
+
+    /**
+     * Gets the generic object of a typed CAEX object from the loaded models.
+     *
+     * @param caexObject CAEX object.
+     * @return Generic object of a loaded model or null if the object isn't part of a loaded file.
+     */
+    public static GenericCAEXObject findLoaded(GeneralizableCAEXObject caexObject) {
+        for (CAEXModel model : LOADED) {
+            GenericCAEXObject res = model.generalize(caexObject);
+
+            if (res != null) {
+                return res;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the CAEX file of this model.
+     *
+     * @return CAEX file.
+     */
+    public CAEXFile getCAEXFile() {
+        return caexFile;
+    }
+
+    /**
+     * Gets the generic object of the CAEX file.
+     *
+     * @return Root of the generic tree.
+     */
+    public GenericCAEXObject getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets the generic object of a typed CAEX object of the file.
+     * Groups of the tree are generalized until the object is found.
+     *
+     * @param caexObject CAEX object of the file.
+     * @return Generic object of the tree or null if the object isn't part of the file.
+     */
+    public synchronized GenericCAEXObject generalize(GeneralizableCAEXObject caexObject) {
+        GenericCAEXObject res = objects.get(caexObject);
+
+        while (res == null && !unexplored.isEmpty()) {
+            GenericCAEXObject obj = unexplored.pop();
+
+            // Accessing the children generalizes their groups, which registers them
+            for (int i = 0; i < obj.childCount(); i++) {
+                obj.childAt(i);
+            }
+
+            res = objects.get(caexObject);
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets number of generic objects generalized so far.
+     *
+     * @return Number of objects.
+     */
+    public synchronized int size() {
+        return objects.size();
+    }
+
+    /**
+     * Checks if this model is loaded.
+     *
+     * @return True until the model is closed.
+     */
+    public boolean isLoaded() {
+        return LOADED.contains(this);
+    }
+
+    /**
+     * Unloads this model. Later calls of {@link GeneralizableCAEXObject#generalize()} create fresh trees again,
+     * but objects of this tree stay valid.
+     */
+    @Override
+    public void close() {
+        LOADED.remove(this);
+    }
+
+    /**
+     * Registers objects of a group generalized in the tree.
+     *
+     * @param group Array of generic objects, generic object or simple value of the group.
+     */
+    synchronized void register(Object group) {
+        if (group instanceof GenericCAEXObject[]) {
+            for (GenericCAEXObject obj : (GenericCAEXObject[]) group) {
+                register(obj);
+            }
+        } else if (group instanceof GenericCAEXObject) {
+            GenericCAEXObject obj = (GenericCAEXObject) group;
+
+            objects.put(obj.getSourceCAEXObject(), obj);
+            unexplored.push(obj);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CAEXModel{" +
+                "fileName='" + caexFile.getFileName() + '\'' +
+                ", size=" + size() +
+                '}';
+    }
+}
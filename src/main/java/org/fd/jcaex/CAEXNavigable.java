@@ -0,0 +1,79 @@
+package org.fd.jcaex;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Navigation of a tree of CAEX elements, as used by filters.
+ * It's implemented by generic objects and by cursors of columnar models,
+ * so {@link org.fd.jcaex.filter.CAEXFilter#applyFilter(CAEXNavigable, String, boolean)} works on both.
+ *
+ * @param <T> Type of the elements.
+ * @see GenericCAEXObject
+ * @see ColumnarCAEXModel.Cursor
+ */
+public interface CAEXNavigable<T extends CAEXNavigable<T>> {
+
+    /**
+     * Gets name of this element.
+     *
+     * @return Element name (null for root objects).
+     */
+    String getElementName();
+
+    /**
+     * Checks if this element has an attribute.
+     *
+     * @param attrName Name of attribute.
+     * @return True if the element has the attribute.
+     */
+    boolean hasAttribute(String attrName);
+
+    /**
+     * Gets value of an attribute.
+     *
+     * @param attrName Name of attribute.
+     * @return Value of attribute or null if attribute doesn't exist.
+     */
+    Object getAttribute(String attrName);
+
+    /**
+     * Gets number of child elements (simple child elements, e.g. Description, aren't counted).
+     *
+     * @return Number of child elements.
+     */
+    int childCount();
+
+    /**
+     * Gets a child element by its position in document order.
+     *
+     * @param idx Position of the child.
+     * @return Child element.
+     * @throws IndexOutOfBoundsException if there is no child at the given position.
+     */
+    T childAt(int idx);
+
+    /**
+     * Gets child elements with a given element name, in document order.
+     *
+     * @param elementName Name of child elements (e.g. InternalElement).
+     * @return List of child elements, empty if there are none.
+     */
+    List<T> childrenNamed(String elementName);
+
+    /**
+     * Gets an iterator over this element and its descendants in pre-order (parents before their children).
+     * Elements returned by the iterator are valid until the next call of {@link Iterator#next()},
+     * use {@link #retain()} to keep one.
+     *
+     * @return Pre-order iterator starting with this element.
+     */
+    Iterator<T> preOrderIterator();
+
+    /**
+     * Gets an element for the same node which stays valid while other elements are navigated.
+     *
+     * @return This element if it's immutable, otherwise a copy of it.
+     */
+    T retain();
+}
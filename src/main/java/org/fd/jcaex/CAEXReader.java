@@ -0,0 +1,1006 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.Unmarshaller;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Class of a reusable CAEX file reader.
+ * <p>
+ * Creating a JAXB context and compiling the XML schema of a CAEX version are expensive operations,
+ * so a reader does both only once per schema version and keeps a pool of unmarshallers for later reads.
+ * A single reader is thread-safe and can be shared between any number of concurrent callers.
+ * </p>
+ */
+public class CAEXReader {
+
+    private static final int VALIDATION_PIPE_SIZE = 64 * 1024;
+
+    private static volatile CAEXReader defaultReader;
+
+    private final XMLInputFactory xmlInputFactory;
+    private final SchemaBinding v2_15Binding;
+    private final SchemaBinding v3_0Binding;
+    private final boolean memoryMapping;
+    private final ValidationMode validationMode;
+    private final boolean typedAttributeValues;
+
+    /**
+     * Creates a reader which keeps at most as many idle unmarshallers per schema version as there are processors.
+     *
+     * @throws JAXBException if a JAXB context can't be created.
+     * @throws SAXException if a CAEX schema can't be compiled.
+     */
+    public CAEXReader() throws JAXBException, SAXException {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a reader.
+     *
+     * @param poolSize Maximum number of idle unmarshallers kept per schema version.
+     * @throws JAXBException if a JAXB context can't be created.
+     * @throws SAXException if a CAEX schema can't be compiled.
+     */
+    public CAEXReader(int poolSize) throws JAXBException, SAXException {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1, got " + poolSize);
+        }
+
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        this.v2_15Binding = new SchemaBinding(org.fd.jcaex.v2_15.CAEXFile.class, org.fd.jcaex.v2_15.InternalElement.class, "CAEX_ClassModel_V2.15.xsd", poolSize);
+        this.v3_0Binding = new SchemaBinding(org.fd.jcaex.v3_0.CAEXFile.class, org.fd.jcaex.v3_0.InternalElement.class, "CAEX_ClassModel_V.3.0.xsd", poolSize);
+        this.memoryMapping = false;
+        this.validationMode = ValidationMode.STRICT;
+        this.typedAttributeValues = false;
+    }
+
+    /**
+     * Creates a reader sharing the schema bindings of another reader.
+     *
+     * @param other Reader whose bindings are shared.
+     * @param memoryMapping Whether local files should be memory mapped.
+     * @param validationMode Schema validation mode.
+     * @param typedAttributeValues Whether attribute values should be parsed according to their data types.
+     */
+    private CAEXReader(CAEXReader other, boolean memoryMapping, ValidationMode validationMode, boolean typedAttributeValues) {
+        this.xmlInputFactory = other.xmlInputFactory;
+        this.v2_15Binding = other.v2_15Binding;
+        this.v3_0Binding = other.v3_0Binding;
+        this.memoryMapping = memoryMapping;
+        this.validationMode = validationMode;
+        this.typedAttributeValues = typedAttributeValues;
+    }
+
+    /**
+     * Gets a reader which memory maps local files instead of reading them through a stream.
+     * The parser then reads pages of the file straight from the OS cache instead of copying them through
+     * read calls, which pays off for large files. Files larger than 2 GB are always read as streams.
+     * <p>
+     * The returned reader shares JAXB contexts, schemas and unmarshallers with this reader.
+     * </p>
+     *
+     * @param memoryMapping Whether local files should be memory mapped.
+     * @return Reader object with the given setting.
+     */
+    public CAEXReader withMemoryMapping(boolean memoryMapping) {
+        return memoryMapping == this.memoryMapping ? this : new CAEXReader(this, memoryMapping, validationMode, typedAttributeValues);
+    }
+
+    /**
+     * Gets a reader which validates documents in the given mode. Default mode is {@link ValidationMode#STRICT}.
+     * <p>
+     * The returned reader shares JAXB contexts, schemas and unmarshallers with this reader.
+     * </p>
+     *
+     * @param validationMode Schema validation mode.
+     * @return Reader object with the given setting.
+     */
+    public CAEXReader withValidationMode(ValidationMode validationMode) {
+        Objects.requireNonNull(validationMode, "Validation mode must not be null");
+
+        return validationMode == this.validationMode ? this : new CAEXReader(this, memoryMapping, validationMode, typedAttributeValues);
+    }
+
+    /**
+     * Gets a reader which parses Value and DefaultValue of every attribute according to its AttributeDataType
+     * while reading a document (see {@link TypedAttribute#getTypedValue()}).
+     * Values which aren't valid for their data type fail the read with a single {@link CAEXFileParseException} listing them.
+     * It affects the read methods only, streamed internal elements and generic trees are read as usual.
+     * <p>
+     * The returned reader shares JAXB contexts, schemas and unmarshallers with this reader.
+     * </p>
+     *
+     * @param typedAttributeValues Whether attribute values should be parsed according to their data types.
+     * @return Reader object with the given setting.
+     */
+    public CAEXReader withTypedAttributeValues(boolean typedAttributeValues) {
+        return typedAttributeValues == this.typedAttributeValues ? this : new CAEXReader(this, memoryMapping, validationMode, typedAttributeValues);
+    }
+
+    /**
+     * Reads a CAEX file. Schema version of the file is determined automatically.
+     *
+     * @param file CAEX file.
+     * @return Object of the CAEX file, either a {@link org.fd.jcaex.v2_15.CAEXFile} or a {@link org.fd.jcaex.v3_0.CAEXFile}.
+     * @throws IOException if the file can't be read.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the file doesn't conform to its CAEX schema.
+     * @see #read(Path)
+     */
+    public CAEXFile read(File file) throws IOException, CAEXFileParseException, JAXBException {
+        return read(file.toPath());
+    }
+
+    /**
+     * Reads a CAEX file. Schema version of the file is determined automatically.
+     * <p>
+     * The file is read only once: its root element is sniffed for the schema version with a streaming reader,
+     * then the same reader is handed over to the unmarshaller of that version.
+     * </p>
+     *
+     * @param path Path of the CAEX file.
+     * @return Object of the CAEX file, either a {@link org.fd.jcaex.v2_15.CAEXFile} or a {@link org.fd.jcaex.v3_0.CAEXFile}.
+     * @throws IOException if the file can't be read.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the file doesn't conform to its CAEX schema.
+     */
+    public CAEXFile read(Path path) throws IOException, CAEXFileParseException, JAXBException {
+        try (InputStream is = open(path)) {
+            return read(is, path.toUri().toString());
+        }
+    }
+
+    /**
+     * Reads a CAEX document from a stream. The stream is not closed.
+     *
+     * @param inputStream Stream of the document.
+     * @return Object of the CAEX file.
+     * @throws CAEXFileParseException if the document isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the document doesn't conform to its CAEX schema or can't be read.
+     */
+    public CAEXFile read(InputStream inputStream) throws CAEXFileParseException, JAXBException {
+        return read(inputStream, null);
+    }
+
+    /**
+     * Reads a CAEX document from a channel. The channel is not closed.
+     *
+     * @param channel Channel of the document.
+     * @return Object of the CAEX file.
+     * @throws CAEXFileParseException if the document isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the document doesn't conform to its CAEX schema or can't be read.
+     */
+    public CAEXFile read(ReadableByteChannel channel) throws CAEXFileParseException, JAXBException {
+        return read(Channels.newInputStream(channel), null);
+    }
+
+    /**
+     * Reads a CAEX document from the remaining bytes of a buffer.
+     * Position of the given buffer is left unchanged.
+     *
+     * @param buffer Buffer containing the document, e.g. a memory mapped file or an in-memory cache entry.
+     * @return Object of the CAEX file.
+     * @throws CAEXFileParseException if the document isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the document doesn't conform to its CAEX schema.
+     */
+    public CAEXFile read(ByteBuffer buffer) throws CAEXFileParseException, JAXBException {
+        return read(new ByteBufferInputStream(buffer.duplicate()), null);
+    }
+
+    /**
+     * Reads a CAEX document from a stream. The stream is not closed.
+     *
+     * @param inputStream Stream of the document.
+     * @param systemId System ID of the document used for error messages and resolving relative URIs (may be null).
+     * @return Object of the CAEX file.
+     * @throws CAEXFileParseException if the document isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the document doesn't conform to its CAEX schema or can't be read.
+     */
+    CAEXFile read(InputStream inputStream, String systemId) throws CAEXFileParseException, JAXBException {
+        if (typedAttributeValues) {
+            return parse(inputStream, systemId, validationMode, CAEXReader::unmarshalTyped);
+        }
+
+        return parse(inputStream, systemId, validationMode, CAEXReader::unmarshal);
+    }
+
+    /**
+     * Reads a CAEX file straight into a generic object tree. Schema version of the file is determined automatically.
+     * <p>
+     * The tree is built from the events of a streaming reader in a single pass, without unmarshalling typed CAEX objects
+     * and generalizing them afterwards. It has the same shape as the tree returned by {@link GeneralizableCAEXObject#generalize()}
+     * for the unmarshalled file, so it can be filtered the same way (see {@link org.fd.jcaex.filter.CAEXFilter#forObject(GenericCAEXObject)}).
+     * Typed source objects are created only when {@link GenericCAEXObject#getSourceCAEXObject()} is first called on any node of the tree,
+     * by unmarshalling the file once more.
+     * </p>
+     * <p>
+     * As the schema can't be checked inline while building the tree, {@link ValidationMode#STRICT} validation is carried out
+     * as {@link ValidationMode#PARALLEL} validation, still failing the read if the file is invalid.
+     * </p>
+     *
+     * @param path Path of the CAEX file.
+     * @return Root object of the generic tree, which represents the CAEXFile element.
+     * @throws IOException if the file can't be read.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the file doesn't conform to its CAEX schema or can't be read.
+     */
+    public GenericCAEXObject readGeneric(Path path) throws IOException, CAEXFileParseException, JAXBException {
+        try (InputStream is = open(path)) {
+            return readGeneric(is, path.toUri().toString(), new SourceLink(withValidationMode(ValidationMode.NONE), path));
+        }
+    }
+
+    /**
+     * Reads a CAEX document from a stream straight into a generic object tree. The stream is not closed.
+     * Objects of the tree don't have source objects, as the stream can't be read again.
+     *
+     * @param inputStream Stream of the document.
+     * @return Root object of the generic tree, which represents the CAEXFile element.
+     * @throws CAEXFileParseException if the document isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the document doesn't conform to its CAEX schema or can't be read.
+     * @see #readGeneric(Path)
+     */
+    public GenericCAEXObject readGeneric(InputStream inputStream) throws CAEXFileParseException, JAXBException {
+        return readGeneric(inputStream, null, null);
+    }
+
+    /**
+     * Reads a CAEX document from a stream straight into a generic object tree.
+     *
+     * @param inputStream Stream of the document.
+     * @param systemId System ID of the document (may be null).
+     * @param sourceLink Link for looking up source objects (may be null).
+     * @return Root object of the generic tree.
+     */
+    private GenericCAEXObject readGeneric(InputStream inputStream, String systemId, SourceLink sourceLink) throws CAEXFileParseException, JAXBException {
+        ValidationMode mode = validationMode == ValidationMode.STRICT ? ValidationMode.PARALLEL : validationMode;
+
+        return parse(inputStream, systemId, mode, (binding, reader, validating) -> new GenericObjectBuilder(binding, reader, sourceLink).build());
+    }
+
+    /**
+     * Reads a CAEX file into a columnar model kept off-heap. Schema version of the file is determined automatically.
+     * <p>
+     * The model is built from the events of a streaming reader in a single pass, like a generic tree
+     * (see {@link #readGeneric(Path)}), but its nodes are stored in direct buffers instead of objects,
+     * so that very large files can be read without a large heap.
+     * {@link ValidationMode#STRICT} validation is carried out as {@link ValidationMode#PARALLEL} validation.
+     * </p>
+     *
+     * @param path Path of the CAEX file.
+     * @return Columnar model of the file.
+     * @throws IOException if the file can't be read.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the file doesn't conform to its CAEX schema or can't be read.
+     */
+    public ColumnarCAEXModel readColumnar(Path path) throws IOException, CAEXFileParseException, JAXBException {
+        try (InputStream is = open(path)) {
+            return readColumnar(is, path.toUri().toString());
+        }
+    }
+
+    /**
+     * Reads a CAEX document from a stream into a columnar model kept off-heap. The stream is not closed.
+     *
+     * @param inputStream Stream of the document.
+     * @return Columnar model of the document.
+     * @throws CAEXFileParseException if the document isn't a CAEX document of a supported schema version.
+     * @throws JAXBException if the document doesn't conform to its CAEX schema or can't be read.
+     * @see #readColumnar(Path)
+     */
+    public ColumnarCAEXModel readColumnar(InputStream inputStream) throws CAEXFileParseException, JAXBException {
+        return readColumnar(inputStream, null);
+    }
+
+    /**
+     * Reads a CAEX document from a stream into a columnar model.
+     *
+     * @param inputStream Stream of the document.
+     * @param systemId System ID of the document (may be null).
+     * @return Columnar model of the document.
+     */
+    private ColumnarCAEXModel readColumnar(InputStream inputStream, String systemId) throws CAEXFileParseException, JAXBException {
+        ValidationMode mode = validationMode == ValidationMode.STRICT ? ValidationMode.PARALLEL : validationMode;
+
+        return parse(inputStream, systemId, mode, (binding, reader, validating) -> new ColumnarModelBuilder(binding, reader).build());
+    }
+
+    /**
+     * Parses a CAEX document from a stream.
+     *
+     * @param inputStream Stream of the document.
+     * @param systemId System ID of the document (may be null).
+     * @param mode Schema validation mode.
+     * @param parser Parser of the document.
+     * @return Parsed document.
+     */
+    private <T> T parse(InputStream inputStream, String systemId, ValidationMode mode, DocumentParser<T> parser) throws CAEXFileParseException, JAXBException {
+        if (mode == ValidationMode.PARALLEL) {
+            return parseValidatingInParallel(inputStream, systemId, parser);
+        }
+
+        XMLStreamReader reader = createStreamReader(inputStream, systemId);
+
+        try {
+            SchemaBinding binding = getBinding(detectSchemaVersion(reader));
+
+            return parser.parse(binding, reader, mode == ValidationMode.STRICT);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Parses a CAEX document from a stream, while validating the same bytes against the schema on another thread.
+     *
+     * @param inputStream Stream of the document.
+     * @param systemId System ID of the document (may be null).
+     * @param parser Parser of the document, it's never asked to validate.
+     * @return Parsed document.
+     */
+    private <T> T parseValidatingInParallel(InputStream inputStream, String systemId, DocumentParser<T> parser) throws CAEXFileParseException, JAXBException {
+        TeeInputStream tee = new TeeInputStream(inputStream);
+        XMLStreamReader reader = createStreamReader(tee, systemId);
+        Future<?> validation = null;
+
+        try {
+            SchemaBinding binding = getBinding(detectSchemaVersion(reader));
+
+            PipedInputStream pipe = new PipedInputStream(VALIDATION_PIPE_SIZE);
+            InputStream head = tee.attachBranch(new PipedOutputStream(pipe));
+            StreamSource validationSource = new StreamSource(new SequenceInputStream(head, pipe), systemId);
+
+            validation = ValidationExecutorHolder.EXECUTOR.submit(() -> {
+                try (pipe) {
+                    binding.schema.newValidator().validate(validationSource);
+                }
+
+                return null;
+            });
+
+            T res = parser.parse(binding, reader, false);
+
+            tee.finishBranch();
+            validation.get();
+
+            // The validator may have seen only a part of the document
+            if (tee.getBranchFailure() != null) {
+                throw new UnmarshalException("Document couldn't be passed to the validator", tee.getBranchFailure());
+            }
+
+            return res;
+        } catch (IOException e) {
+            throw new UnmarshalException(e);
+        } catch (ExecutionException e) {
+            throw new UnmarshalException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnmarshalException(e);
+        } finally {
+            tee.closeBranch();
+
+            if (validation != null) {
+                validation.cancel(true);
+            }
+
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Unmarshals a CAEX document with a pooled unmarshaller.
+     *
+     * @param binding Schema binding of the document.
+     * @param reader Stream reader positioned on the root element.
+     * @param validating Whether the unmarshaller should validate the document.
+     * @return Object of the CAEX file.
+     */
+    private static CAEXFile unmarshal(SchemaBinding binding, XMLStreamReader reader, boolean validating) throws JAXBException {
+        return unmarshal(binding, reader, validating, null);
+    }
+
+    /**
+     * Unmarshals a CAEX document with a pooled unmarshaller, parsing attribute values according to their data types.
+     *
+     * @param binding Schema binding of the document.
+     * @param reader Stream reader positioned on the root element.
+     * @param validating Whether the unmarshaller should validate the document.
+     * @return Object of the CAEX file.
+     * @throws CAEXFileParseException if any attribute value isn't valid for its data type.
+     */
+    private static CAEXFile unmarshalTyped(SchemaBinding binding, XMLStreamReader reader, boolean validating) throws JAXBException, CAEXFileParseException {
+        TypedValueParser parser = new TypedValueParser();
+        CAEXFile res = unmarshal(binding, reader, validating, parser);
+
+        parser.check();
+
+        return res;
+    }
+
+    /**
+     * Unmarshals a CAEX document with a pooled unmarshaller.
+     *
+     * @param binding Schema binding of the document.
+     * @param reader Stream reader positioned on the root element.
+     * @param validating Whether the unmarshaller should validate the document.
+     * @param listener Listener of the unmarshaller (may be null).
+     * @return Object of the CAEX file.
+     */
+    private static CAEXFile unmarshal(SchemaBinding binding, XMLStreamReader reader, boolean validating, Unmarshaller.Listener listener) throws JAXBException {
+        Unmarshaller unmarshaller = binding.acquire(validating);
+        unmarshaller.setListener(listener);
+
+        CAEXFile res = (CAEXFile) unmarshaller.unmarshal(reader);
+
+        // Unmarshallers failed during parsing are simply dropped instead of being returned to the pool
+        unmarshaller.setListener(null);
+        binding.release(unmarshaller);
+
+        return res;
+    }
+
+    /**
+     * Reads all CAEX files (*.aml) of a directory concurrently. Subdirectories are not searched.
+     *
+     * @param directory Directory of the files.
+     * @return Batch result with files ordered by file name.
+     * @throws IOException if the directory can't be listed.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the batch.
+     * @see #readAll(List)
+     */
+    public CAEXBatchResult readDirectory(Path directory) throws IOException, InterruptedException {
+        return readAll(listCAEXFiles(directory));
+    }
+
+    /**
+     * Reads all CAEX files (*.aml) of a directory concurrently on the given executor. Subdirectories are not searched.
+     *
+     * @param directory Directory of the files.
+     * @param executor Executor of the read tasks.
+     * @return Batch result with files ordered by file name.
+     * @throws IOException if the directory can't be listed.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the batch.
+     * @see #readAll(List, ExecutorService)
+     */
+    public CAEXBatchResult readDirectory(Path directory, ExecutorService executor) throws IOException, InterruptedException {
+        return readAll(listCAEXFiles(directory), executor);
+    }
+
+    /**
+     * Reads CAEX files concurrently on a temporary thread pool having as many threads as there are processors.
+     *
+     * @param paths Paths of the files.
+     * @return Batch result.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the batch.
+     * @see #readAll(List, ExecutorService)
+     */
+    public CAEXBatchResult readAll(List<Path> paths) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(paths.size(), Runtime.getRuntime().availableProcessors())));
+
+        try {
+            return readAll(paths, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads CAEX files concurrently on the given executor.
+     * <p>
+     * All files are read by this reader, so JAXB contexts, schemas and unmarshallers are shared by the tasks.
+     * Any executor can be used, e.g. a virtual thread per task executor on Java versions supporting it.
+     * Errors of individual files don't abort the batch, they are collected in the results.
+     * JVM errors (e.g. OutOfMemoryError) abort the batch and are re-thrown.
+     * </p>
+     *
+     * @param paths Paths of the files.
+     * @param executor Executor of the read tasks. It isn't shut down by this method.
+     * @return Batch result containing file results in input order.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the batch.
+     */
+    public CAEXBatchResult readAll(List<Path> paths, ExecutorService executor) throws InterruptedException {
+        long start = System.nanoTime();
+
+        List<Future<CAEXBatchResult.FileResult>> futures = new ArrayList<>(paths.size());
+
+        for (Path path : paths) {
+            futures.add(executor.submit(() -> readForBatch(path)));
+        }
+
+        List<CAEXBatchResult.FileResult> results = new ArrayList<>(paths.size());
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                // Only JVM errors escape readForBatch, they aren't failures of the file
+                if (cause instanceof Error) {
+                    futures.forEach(f -> f.cancel(true));
+                    throw (Error) cause;
+                }
+
+                results.add(new CAEXBatchResult.FileResult(paths.get(i), -1, 0, null,
+                        cause instanceof Exception ? (Exception) cause : new Exception(cause)));
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw e;
+            }
+        }
+
+        return new CAEXBatchResult(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads a single file of a batch.
+     *
+     * @param path Path of the file.
+     * @return File result containing either the CAEX file or the error occurred.
+     */
+    private CAEXBatchResult.FileResult readForBatch(Path path) {
+        long start = System.nanoTime();
+        long size = -1;
+
+        try {
+            size = Files.size(path);
+
+            CAEXFile caexFile = read(path);
+
+            return new CAEXBatchResult.FileResult(path, size, System.nanoTime() - start, caexFile, null);
+        } catch (IOException | CAEXFileParseException | JAXBException | RuntimeException e) {
+            return new CAEXBatchResult.FileResult(path, size, System.nanoTime() - start, null, e);
+        }
+    }
+
+    /**
+     * Lists CAEX files of a directory.
+     *
+     * @param directory Directory of the files.
+     * @return Paths of regular *.aml files ordered by file name.
+     * @throws IOException if the directory can't be listed.
+     */
+    private static List<Path> listCAEXFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".aml"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Streams top level internal elements of all instance hierarchies of a CAEX file.
+     * <p>
+     * The document is traversed with a streaming reader and each top level InternalElement is unmarshalled
+     * together with its subtree only when the stream reaches it, so memory usage is bounded by the largest
+     * top level element instead of the whole document. Elements are unmarshalled as fragments, therefore
+     * they are not validated against the CAEX schema.
+     * </p>
+     * <p>
+     * The returned stream holds the file open and must be closed after use (e.g. with try-with-resources).
+     * Errors occurring while the stream is consumed are thrown as unchecked exceptions.
+     * </p>
+     *
+     * @param path Path of the CAEX file.
+     * @return Stream of InternalElement objects, either {@link org.fd.jcaex.v2_15.InternalElement} or {@link org.fd.jcaex.v3_0.InternalElement}.
+     * @throws IOException if the file can't be opened.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if no unmarshaller can be created.
+     */
+    public Stream<GeneralizableCAEXObject> stream(Path path) throws IOException, CAEXFileParseException, JAXBException {
+        InputStream is = open(path);
+
+        try {
+            XMLStreamReader reader = createStreamReader(is, path.toUri().toString());
+            SchemaBinding binding;
+
+            try {
+                binding = getBinding(detectSchemaVersion(reader));
+            } catch (CAEXFileParseException e) {
+                closeQuietly(reader);
+                throw e;
+            }
+
+            InternalElementIterator iter = new InternalElementIterator(reader, is, binding);
+
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(iter::close);
+        } catch (CAEXFileParseException | JAXBException | RuntimeException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the shared reader used by the static read methods of {@link CAEXFile}.
+     *
+     * @return Shared reader object.
+     * @throws JAXBException if a JAXB context can't be created.
+     * @throws SAXException if a CAEX schema can't be compiled.
+     */
+    static CAEXReader getDefault() throws JAXBException, SAXException {
+        CAEXReader res = defaultReader;
+
+        if (res == null) {
+            synchronized (CAEXReader.class) {
+                res = defaultReader;
+
+                if (res == null) {
+                    res = new CAEXReader();
+                    defaultReader = res;
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets binding of the given schema version.
+     *
+     * @param schemaVersion Value of the SchemaVersion attribute.
+     * @return Schema binding.
+     * @throws CAEXFileParseException if the schema version isn't supported.
+     */
+    private SchemaBinding getBinding(String schemaVersion) throws CAEXFileParseException {
+        switch (schemaVersion) {
+            case "2.15": return v2_15Binding;
+            case "3.0": return v3_0Binding;
+            default: throw new CAEXFileParseException("Unsupported schema version: " + schemaVersion);
+        }
+    }
+
+    /**
+     * Opens a local file for reading, memory mapping it if the reader is configured so.
+     *
+     * @param path Path of the file.
+     * @return Input stream of the file.
+     * @throws IOException if the file can't be opened.
+     */
+    private InputStream open(Path path) throws IOException {
+        if (memoryMapping) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+
+                if (size <= Integer.MAX_VALUE) {
+                    // The mapping stays valid after the channel is closed
+                    return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                }
+            }
+        }
+
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * Creates a streaming reader on a CAEX document.
+     *
+     * @param inputStream Stream of the document.
+     * @param systemId System ID of the document (may be null).
+     * @return Newly created stream reader.
+     * @throws CAEXFileParseException if the reader can't be created.
+     */
+    private XMLStreamReader createStreamReader(InputStream inputStream, String systemId) throws CAEXFileParseException {
+        try {
+            return xmlInputFactory.createXMLStreamReader(systemId, inputStream);
+        } catch (XMLStreamException e) {
+            throw new CAEXFileParseException("File format error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Determines schema version of a CAEX document.
+     * Only the prolog and the start tag of the root element are read, the reader is left positioned on the root element.
+     *
+     * @param reader Stream reader positioned before the root element.
+     * @return Value of the SchemaVersion attribute of the root element.
+     * @throws CAEXFileParseException if the root element isn't a valid CAEXFile element.
+     */
+    private static String detectSchemaVersion(XMLStreamReader reader) throws CAEXFileParseException {
+        try {
+            while (reader.hasNext() && reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                reader.next();
+            }
+        } catch (XMLStreamException e) {
+            throw new CAEXFileParseException("File format error: " + e.getMessage(), e);
+        }
+
+        if (reader.getEventType() != XMLStreamConstants.START_ELEMENT || !"CAEXFile".equals(reader.getLocalName())) {
+            throw new CAEXFileParseException("File format error: <CAEXFile> root tag missing.");
+        }
+
+        String res = reader.getAttributeValue(null, "SchemaVersion");
+
+        if (res == null) {
+            throw new CAEXFileParseException("File format error: <CAEXFile> element doesn't have the [SchemaVersion] attribute.");
+        }
+
+        return res;
+    }
+
+    /**
+     * Closes a stream reader, ignoring any errors.
+     *
+     * @param reader Stream reader.
+     */
+    private static void closeQuietly(XMLStreamReader reader) {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // Nothing to do, the underlying stream is closed by its owner
+        }
+    }
+
+    /**
+     * Parser of a CAEX document positioned on its root element.
+     */
+    @FunctionalInterface
+    private interface DocumentParser<T> {
+
+        T parse(SchemaBinding binding, XMLStreamReader reader, boolean validating) throws JAXBException, CAEXFileParseException;
+    }
+
+    /**
+     * Unmarshaller listener parsing values of typed attributes. Invalid values are collected and reported together.
+     */
+    private static class TypedValueParser extends Unmarshaller.Listener {
+
+        private static final int MAX_REPORTED_ERRORS = 10;
+
+        private final List<String> errors = new ArrayList<>();
+        private int errorCount = 0;
+
+        @Override
+        public void afterUnmarshal(Object target, Object parent) {
+            if (target instanceof TypedAttribute) {
+                TypedAttribute attribute = (TypedAttribute) target;
+
+                try {
+                    attribute.parseTypedValues();
+                } catch (IllegalArgumentException e) {
+                    if (errorCount++ < MAX_REPORTED_ERRORS) {
+                        errors.add("Attribute '" + attribute.getName() + "': " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Checks whether all values were valid.
+         *
+         * @throws CAEXFileParseException if any value was invalid.
+         */
+        void check() throws CAEXFileParseException {
+            if (errorCount > 0) {
+                throw new CAEXFileParseException(errorCount + " attribute value(s) don't match their AttributeDataType: "
+                        + String.join("; ", errors) + (errorCount > errors.size() ? "; ..." : ""));
+            }
+        }
+    }
+
+    /**
+     * Lazily created executor of parallel validations.
+     */
+    private static class ValidationExecutorHolder {
+
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            Thread res = new Thread(runnable, "jcaex-validation");
+            res.setDaemon(true);
+
+            return res;
+        });
+    }
+
+    /**
+     * JAXB context, compiled schema and idle unmarshallers of one CAEX schema version.
+     */
+    static class SchemaBinding {
+
+        final Class<?> rootClass;
+        private final JAXBContext jaxbContext;
+        private final Schema schema;
+        private final Class<? extends GeneralizableCAEXObject> internalElementClass;
+        private final BlockingQueue<Unmarshaller> unmarshallers;
+
+        SchemaBinding(Class<?> rootClass, Class<? extends GeneralizableCAEXObject> internalElementClass, String schemaResource, int poolSize) throws JAXBException, SAXException {
+            URL url = ClassLoader.getSystemResource(schemaResource);
+
+            if (url == null) {
+                throw new IllegalStateException("Schema resource '" + schemaResource + "' not found.");
+            }
+
+            this.rootClass = rootClass;
+            this.jaxbContext = JAXBContext.newInstance(rootClass);
+            this.schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(url);
+            this.internalElementClass = internalElementClass;
+            this.unmarshallers = new ArrayBlockingQueue<>(poolSize);
+        }
+
+        /**
+         * Takes an idle unmarshaller from the pool or creates a new one if the pool is empty.
+         *
+         * @param validating Whether the unmarshaller should validate against the schema of this binding.
+         * @return Unmarshaller object.
+         * @throws JAXBException if a new unmarshaller can't be created.
+         */
+        Unmarshaller acquire(boolean validating) throws JAXBException {
+            Unmarshaller res = unmarshallers.poll();
+
+            if (res == null) {
+                res = jaxbContext.createUnmarshaller();
+            }
+
+            res.setSchema(validating ? schema : null);
+
+            return res;
+        }
+
+        /**
+         * Returns an unmarshaller to the pool. If the pool is full, the unmarshaller is discarded.
+         *
+         * @param unmarshaller Unmarshaller to be returned.
+         */
+        void release(Unmarshaller unmarshaller) {
+            unmarshallers.offer(unmarshaller);
+        }
+    }
+
+    /**
+     * Iterator unmarshalling top level internal elements of instance hierarchies one by one.
+     */
+    private static class InternalElementIterator implements Iterator<GeneralizableCAEXObject> {
+
+        private final XMLStreamReader reader;
+        private final InputStream inputStream;
+        private final SchemaBinding binding;
+        private final Unmarshaller unmarshaller;
+
+        // Depth of the current element, the root element is at depth 1
+        private int depth = 1;
+        private boolean inInstanceHierarchy = false;
+        private boolean currentEventPending = false;
+        private boolean finished = false;
+        private GeneralizableCAEXObject next;
+
+        InternalElementIterator(XMLStreamReader reader, InputStream inputStream, SchemaBinding binding) throws JAXBException {
+            this.reader = reader;
+            this.inputStream = inputStream;
+            this.binding = binding;
+            this.unmarshaller = binding.acquire(false);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                next = advance();
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public GeneralizableCAEXObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            GeneralizableCAEXObject res = next;
+            next = null;
+
+            return res;
+        }
+
+        /**
+         * Moves the cursor to the next top level internal element and unmarshals it.
+         *
+         * @return Unmarshalled element or null if the end of the document is reached.
+         */
+        private GeneralizableCAEXObject advance() {
+            try {
+                while (true) {
+                    int event;
+
+                    if (currentEventPending) {
+                        // After unmarshalling a fragment the reader already points to the event following it
+                        event = reader.getEventType();
+                        currentEventPending = false;
+                    } else if (reader.hasNext()) {
+                        event = reader.next();
+                    } else {
+                        event = XMLStreamConstants.END_DOCUMENT;
+                    }
+
+                    switch (event) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            depth++;
+
+                            if (depth == 2) {
+                                inInstanceHierarchy = "InstanceHierarchy".equals(reader.getLocalName());
+                            } else if (depth == 3 && inInstanceHierarchy && "InternalElement".equals(reader.getLocalName())) {
+                                GeneralizableCAEXObject res = unmarshaller.unmarshal(reader, binding.internalElementClass).getValue();
+
+                                depth--;
+                                currentEventPending = true;
+
+                                return res;
+                            }
+                            break;
+
+                        case XMLStreamConstants.END_ELEMENT:
+                            depth--;
+                            break;
+
+                        case XMLStreamConstants.END_DOCUMENT:
+                            finished = true;
+                            binding.release(unmarshaller);
+                            return null;
+
+                        default:
+                    }
+                }
+            } catch (XMLStreamException | JAXBException e) {
+                finished = true;
+                throw new RuntimeException("Error while streaming internal elements: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Closes the underlying reader and input stream.
+         */
+        void close() {
+            finished = true;
+            closeQuietly(reader);
+
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
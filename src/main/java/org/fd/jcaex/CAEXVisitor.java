@@ -0,0 +1,38 @@
+package org.fd.jcaex;
+
+/**
+ * Visitor of generic CAEX objects.
+ *
+ * @see GenericCAEXObject#walk(CAEXVisitor)
+ */
+@FunctionalInterface
+public interface CAEXVisitor {
+
+    /**
+     * Result of visiting an object.
+     */
+    enum Result {
+        /**
+         * Continue with the children of the object.
+         */
+        CONTINUE,
+
+        /**
+         * Continue without the children of the object.
+         */
+        SKIP_SUBTREE,
+
+        /**
+         * Stop the walk.
+         */
+        STOP
+    }
+
+    /**
+     * Visits an object.
+     *
+     * @param object Visited object.
+     * @return Whether the walk continues with the children of the object, without them, or stops.
+     */
+    Result visit(GenericCAEXObject object);
+}
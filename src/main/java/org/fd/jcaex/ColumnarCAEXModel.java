@@ -0,0 +1,598 @@
+package org.fd.jcaex;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * CAEX model stored in off-heap columns, for documents too large to be held as typed or generic object trees.
+ * <p>
+ * Every generalizable element of the document (e.g. InternalElement, Attribute, ExternalInterface) is a node,
+ * numbered in document order (pre-order), so the descendants of a node are the nodes following it up to the end of its subtree.
+ * Nodes are kept in columns of direct buffers: kind, parent, first child, next sibling, end of subtree and the offsets of
+ * the XML attributes and simple child elements (e.g. Value, Description) of the node. Names are interned, texts are kept
+ * as UTF-8 in a string pool. Only a handful of objects are on the heap, regardless of the size of the document,
+ * so the model doesn't add to the work of the garbage collector.
+ * </p>
+ * <p>
+ * Nodes are read through a {@link Cursor}, a flyweight which moves between nodes. Cursors implement the same navigation
+ * as generic objects ({@link CAEXNavigable}), so filters run on the columns directly
+ * (see {@link org.fd.jcaex.filter.CAEXFilter#applyFilter(CAEXNavigable, String, boolean)}).
+ * Subtrees can be turned into generic objects as well (see {@link Cursor#toGeneric()}).
+ * </p>
+ * <p>
+ * The direct buffers are released only when the model (and every cursor of it) becomes unreachable and is collected,
+ * there is no way to free them explicitly. They count against the direct memory limit of the JVM
+ * ({@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size), and allocating beyond it fails with an
+ * {@link OutOfMemoryError}. Columns grow by doubling while the model is built, so building may need up to twice
+ * {@link #offHeapBytes()} for a moment. Large models need the limit set accordingly.
+ * </p>
+ *
+ * @see CAEXReader#readColumnar(java.nio.file.Path)
+ */
+public final class ColumnarCAEXModel {
+
+    /**
+     * Column of ints in a direct buffer, growing while the model is built.
+     */
+    static final class IntColumn {
+
+        private ByteBuffer buffer;
+        private int size = 0;
+
+        IntColumn(int capacity) {
+            this.buffer = allocate(capacity * Integer.BYTES);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int idx) {
+            return buffer.getInt(idx * Integer.BYTES);
+        }
+
+        void set(int idx, int value) {
+            buffer.putInt(idx * Integer.BYTES, value);
+        }
+
+        int add(int value) {
+            if ((size + 1) * (long) Integer.BYTES > buffer.capacity()) {
+                buffer = grow(buffer, (size + 1) * (long) Integer.BYTES);
+            }
+
+            set(size, value);
+
+            return size++;
+        }
+
+        long capacity() {
+            return buffer.capacity();
+        }
+    }
+
+    /**
+     * Pool of UTF-8 texts in a direct buffer, growing while the model is built.
+     */
+    static final class TextPool {
+
+        private ByteBuffer buffer;
+        private int size = 0;
+
+        TextPool(int capacity) {
+            this.buffer = allocate(capacity);
+        }
+
+        /**
+         * Adds a text to the pool.
+         *
+         * @param text Text.
+         * @return Offset of the text. Its length in bytes is {@link #size()} minus the offset afterwards.
+         */
+        int add(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+            if (size + (long) bytes.length > buffer.capacity()) {
+                buffer = grow(buffer, size + (long) bytes.length);
+            }
+
+            int res = size;
+            ByteBuffer target = buffer.duplicate();
+            target.position(size);
+            target.put(bytes);
+            size += bytes.length;
+
+            return res;
+        }
+
+        int size() {
+            return size;
+        }
+
+        String get(int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset);
+            source.get(bytes);
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long capacity() {
+            return buffer.capacity();
+        }
+    }
+
+    // Kinds of nodes: element name and model class
+    final List<String> kindNames = new ArrayList<>();
+    final List<Class<?>> kindTypes = new ArrayList<>();
+
+    // Interned names of attributes and simple child elements
+    final List<String> names = new ArrayList<>();
+    final Map<String, Integer> nameIds = new HashMap<>();
+
+    // Node columns
+    final IntColumn kind;
+    final IntColumn parent;
+    final IntColumn firstChild;
+    final IntColumn nextSibling;
+    final IntColumn end;
+    final IntColumn attributeStart;
+    final IntColumn valueStart;
+    final IntColumn valueCount;
+
+    // Attribute and simple element columns: name ID, offset and length of the text in the pool
+    final IntColumn attributeName;
+    final IntColumn attributeOffset;
+    final IntColumn attributeLength;
+    final IntColumn valueName;
+    final IntColumn valueOffset;
+    final IntColumn valueLength;
+    final TextPool texts;
+
+    ColumnarCAEXModel(int capacity) {
+        this.kind = new IntColumn(capacity);
+        this.parent = new IntColumn(capacity);
+        this.firstChild = new IntColumn(capacity);
+        this.nextSibling = new IntColumn(capacity);
+        this.end = new IntColumn(capacity);
+        this.attributeStart = new IntColumn(capacity);
+        this.valueStart = new IntColumn(capacity);
+        this.valueCount = new IntColumn(capacity);
+        this.attributeName = new IntColumn(capacity);
+        this.attributeOffset = new IntColumn(capacity);
+        this.attributeLength = new IntColumn(capacity);
+        this.valueName = new IntColumn(capacity);
+        this.valueOffset = new IntColumn(capacity);
+        this.valueLength = new IntColumn(capacity);
+        this.texts = new TextPool(capacity * 16);
+    }
+
+    /**
+     * Gets number of nodes.
+     *
+     * @return Number of nodes.
+     */
+    public int size() {
+        return kind.size();
+    }
+
+    /**
+     * Gets number of bytes allocated off-heap for the columns and the string pool.
+     *
+     * @return Number of bytes.
+     */
+    public long offHeapBytes() {
+        long res = texts.capacity();
+
+        for (IntColumn column : new IntColumn[] { kind, parent, firstChild, nextSibling, end, attributeStart, valueStart,
+                valueCount, attributeName, attributeOffset, attributeLength, valueName, valueOffset, valueLength }) {
+            res += column.capacity();
+        }
+
+        return res;
+    }
+
+    /**
+     * Creates a cursor positioned on the root node, which represents the CAEXFile element.
+     *
+     * @return Newly created cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * Gets ID of an interned name.
+     *
+     * @param name Name.
+     * @return ID of the name or -1 if no attribute or simple element has the name.
+     */
+    private int nameId(String name) {
+        Integer res = nameIds.get(name);
+
+        return res != null ? res : -1;
+    }
+
+    /**
+     * Gets end of the attributes of a node. Attributes of a node are followed by the attributes of the next node.
+     *
+     * @param node Index of the node.
+     * @return Index of the first attribute after the attributes of the node.
+     */
+    private int attributeEnd(int node) {
+        return node + 1 < size() ? attributeStart.get(node + 1) : attributeName.size();
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(Math.max(capacity, 64)).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, long minCapacity) {
+        long capacity = Math.max(minCapacity, Math.min(buffer.capacity() * 2L, Integer.MAX_VALUE - 8));
+
+        if (capacity > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Document is too large for a columnar model");
+        }
+
+        ByteBuffer res = allocate((int) capacity);
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        res.put(source);
+        res.clear();
+
+        return res;
+    }
+
+    /**
+     * Flyweight view of the nodes of the model. A cursor is positioned on a single node and moves between nodes.
+     * Cursors aren't thread-safe, create one per thread.
+     */
+    public final class Cursor implements CAEXNavigable<Cursor> {
+
+        private int node;
+
+        private Cursor(int node) {
+            this.node = node;
+        }
+
+        /**
+         * Gets the node the cursor is positioned on.
+         *
+         * @return Index of the node in document order.
+         */
+        public int node() {
+            return node;
+        }
+
+        /**
+         * Moves the cursor to a node.
+         *
+         * @param node Index of the node in document order.
+         * @return This cursor.
+         * @throws IndexOutOfBoundsException if there is no such node.
+         */
+        public Cursor moveTo(int node) {
+            if (node < 0 || node >= size()) {
+                throw new IndexOutOfBoundsException("Node " + node + " out of bounds for " + size() + " nodes");
+            }
+
+            this.node = node;
+
+            return this;
+        }
+
+        /**
+         * Moves the cursor to the parent node.
+         *
+         * @return False if the node is the root, the cursor doesn't move then.
+         */
+        public boolean moveToParent() {
+            return moveIfExists(parent.get(node));
+        }
+
+        /**
+         * Moves the cursor to the first child node.
+         *
+         * @return False if the node has no children, the cursor doesn't move then.
+         */
+        public boolean moveToFirstChild() {
+            return moveIfExists(firstChild.get(node));
+        }
+
+        /**
+         * Moves the cursor to the next sibling node.
+         *
+         * @return False if the node is the last child of its parent, the cursor doesn't move then.
+         */
+        public boolean moveToNextSibling() {
+            return moveIfExists(nextSibling.get(node));
+        }
+
+        private boolean moveIfExists(int target) {
+            if (target < 0) {
+                return false;
+            }
+
+            node = target;
+
+            return true;
+        }
+
+        /**
+         * Creates a new cursor positioned on the same node.
+         *
+         * @return Newly created cursor.
+         */
+        public Cursor copy() {
+            return new Cursor(node);
+        }
+
+        /**
+         * Gets element name of the node.
+         *
+         * @return Element name or null for the root.
+         */
+        @Override
+        public String getElementName() {
+            return kindNames.get(kind.get(node));
+        }
+
+        /**
+         * Gets end of the subtree of the node. The descendants of the node are the nodes between the node and the end.
+         *
+         * @return Index of the first node after the subtree.
+         */
+        public int subtreeEnd() {
+            return end.get(node);
+        }
+
+        /**
+         * Gets number of child nodes.
+         *
+         * @return Number of child nodes.
+         */
+        @Override
+        public int childCount() {
+            int res = 0;
+
+            for (int child = firstChild.get(node); child >= 0; child = nextSibling.get(child)) {
+                res++;
+            }
+
+            return res;
+        }
+
+        /**
+         * Creates a cursor positioned on a child node.
+         *
+         * @param idx Position of the child.
+         * @return Newly created cursor.
+         * @throws IndexOutOfBoundsException if there is no child at the given position.
+         */
+        @Override
+        public Cursor childAt(int idx) {
+            int child = firstChild.get(node);
+
+            for (int i = 0; i < idx && child >= 0; i++) {
+                child = nextSibling.get(child);
+            }
+
+            if (idx < 0 || child < 0) {
+                throw new IndexOutOfBoundsException("Child index " + idx + " out of bounds for " + childCount() + " children");
+            }
+
+            return new Cursor(child);
+        }
+
+        /**
+         * Creates cursors positioned on the child nodes with a given element name.
+         *
+         * @param elementName Element name.
+         * @return Newly created list of cursors in document order.
+         */
+        @Override
+        public List<Cursor> childrenNamed(String elementName) {
+            List<Cursor> res = new ArrayList<>();
+
+            for (int child = firstChild.get(node); child >= 0; child = nextSibling.get(child)) {
+                if (elementName.equals(kindNames.get(kind.get(child)))) {
+                    res.add(new Cursor(child));
+                }
+            }
+
+            return res;
+        }
+
+        /**
+         * Gets an iterator over the node and its descendants in pre-order. Nodes are numbered in pre-order,
+         * so the iterator just moves a single cursor through the subtree, without allocating per node.
+         * The returned cursor is moved by the next call of {@link Iterator#next()}, use {@link #copy()} to keep a node.
+         *
+         * @return Pre-order iterator starting with the node. This cursor isn't moved by it.
+         */
+        @Override
+        public Iterator<Cursor> preOrderIterator() {
+            int to = end.get(node);
+
+            return new Iterator<>() {
+                private final Cursor cursor = new Cursor(node);
+                private int next = node;
+
+                @Override
+                public boolean hasNext() {
+                    return next < to;
+                }
+
+                @Override
+                public Cursor next() {
+                    if (next >= to) {
+                        throw new NoSuchElementException();
+                    }
+
+                    cursor.node = next++;
+
+                    return cursor;
+                }
+            };
+        }
+
+        /**
+         * Creates a new cursor positioned on the same node, as cursors are moved by navigation.
+         *
+         * @return Newly created cursor.
+         * @see #copy()
+         */
+        @Override
+        public Cursor retain() {
+            return copy();
+        }
+
+        /**
+         * Checks if the node has an XML attribute in the document.
+         *
+         * @param name Name of the attribute.
+         * @return True if the attribute is written in the document.
+         */
+        @Override
+        public boolean hasAttribute(String name) {
+            return attributeIndex(name) >= 0;
+        }
+
+        /**
+         * Gets an XML attribute of the node as it's written in the document.
+         *
+         * @param name Name of the attribute.
+         * @return Value of the attribute or null if the node doesn't have it.
+         */
+        @Override
+        public String getAttribute(String name) {
+            int idx = attributeIndex(name);
+
+            return idx < 0 ? null : texts.get(attributeOffset.get(idx), attributeLength.get(idx));
+        }
+
+        private int attributeIndex(String name) {
+            int nameId = nameId(name);
+
+            for (int i = attributeStart.get(node), to = attributeEnd(node); i < to && nameId >= 0; i++) {
+                if (attributeName.get(i) == nameId) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Gets the XML attributes of the node as they are written in the document.
+         *
+         * @return Newly created map of attribute names and values, in document order.
+         */
+        public Map<String, String> getAttributes() {
+            Map<String, String> res = new LinkedHashMap<>();
+
+            for (int i = attributeStart.get(node), to = attributeEnd(node); i < to; i++) {
+                res.put(names.get(attributeName.get(i)), texts.get(attributeOffset.get(i), attributeLength.get(i)));
+            }
+
+            return res;
+        }
+
+        /**
+         * Gets text of a simple child element of the node (e.g. Value, Description).
+         *
+         * @param elementName Element name.
+         * @return Text of the element or null if the node doesn't have it.
+         */
+        public String getValue(String elementName) {
+            int nameId = nameId(elementName);
+
+            for (int i = valueStart.get(node), to = i + valueCount.get(node); i < to && nameId >= 0; i++) {
+                if (valueName.get(i) == nameId) {
+                    return texts.get(valueOffset.get(i), valueLength.get(i));
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Generalizes the subtree of the node into generic objects, the same way as {@link CAEXReader#readGeneric(java.nio.file.Path)}.
+         * Simple child elements are kept as their text, even if their type isn't text (e.g. Description).
+         * The generic objects are on the heap, so this is meant for parts of large models.
+         *
+         * @return Generic object of the node, without parent and source object.
+         */
+        public GenericCAEXObject toGeneric() {
+            int to = end.get(node);
+            GenericCAEXObject[] generic = new GenericCAEXObject[to - node];
+
+            // Children follow their parents, so building backwards builds every child before its parent
+            for (int i = to - 1; i >= node; i--) {
+                generic[i - node] = toGeneric(i, generic, node);
+            }
+
+            return generic[0];
+        }
+
+        private GenericCAEXObject toGeneric(int current, GenericCAEXObject[] generic, int first) {
+            Class<?> type = kindTypes.get(kind.get(current));
+            ModelPlan plan = ModelPlan.of(type);
+            Map<String, Object> attributes = new HashMap<>();
+            Map<String, Object> children = new HashMap<>();
+
+            for (int i = attributeStart.get(current), to = attributeEnd(current); i < to; i++) {
+                ModelPlan.AttributePlan attribute = plan.attributes.get(names.get(attributeName.get(i)));
+                Object value = GenericObjectBuilder.convert(attribute, texts.get(attributeOffset.get(i), attributeLength.get(i)));
+
+                if (value != null) {
+                    attributes.put(attribute.name, value);
+                }
+            }
+
+            for (int i = valueStart.get(current), to = i + valueCount.get(current); i < to; i++) {
+                children.put(names.get(valueName.get(i)), texts.get(valueOffset.get(i), valueLength.get(i)));
+            }
+
+            for (int child = firstChild.get(current); child >= 0; child = nextSibling.get(child)) {
+                String elementName = kindNames.get(kind.get(child));
+
+                if (plan.elements.get(elementName).kind == ModelPlan.Kind.LIST) {
+                    @SuppressWarnings("unchecked")
+                    List<GenericCAEXObject> list = (List<GenericCAEXObject>) children.computeIfAbsent(elementName, k -> new ArrayList<>());
+                    list.add(generic[child - first]);
+                } else {
+                    children.put(elementName, generic[child - first]);
+                }
+            }
+
+            GenericObjectBuilder.addDefaults(plan, attributes, children);
+
+            return GenericCAEXObject.create(kindNames.get(kind.get(current)), null, type, attributes, children);
+        }
+
+        @Override
+        public String toString() {
+            return "Cursor{" +
+                    "node=" + node +
+                    ", elementName='" + getElementName() + '\'' +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarCAEXModel{" +
+                "size=" + size() +
+                ", offHeapBytes=" + offHeapBytes() +
+                '}';
+    }
+}
@@ -0,0 +1,241 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.UnmarshalException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Builder of columnar CAEX models straight from StAX events.
+ * <p>
+ * Elements are mapped to nodes following the same plans as {@link GenericObjectBuilder}, but without recursion:
+ * open elements are kept in stacks of ints. Simple child elements are collected until the end of their parent,
+ * so that they are stored together.
+ * </p>
+ */
+final class ColumnarModelBuilder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final CAEXReader.SchemaBinding binding;
+    private final XMLStreamReader reader;
+    private final ColumnarCAEXModel model = new ColumnarCAEXModel(INITIAL_CAPACITY);
+
+    // Kinds of nodes by the plans of their elements (or the root class)
+    private final Map<Object, Integer> kinds = new IdentityHashMap<>();
+
+    // Open elements: node, last child node, plan and position of the first pending simple element
+    private int depth = 0;
+    private int[] openNodes = new int[16];
+    private int[] lastChildren = new int[16];
+    private int[] valueMarks = new int[16];
+    private ModelPlan[] plans = new ModelPlan[16];
+
+    // Simple elements of the open elements, as name ID, offset and length triples
+    private int[] pendingValues = new int[48];
+    private int pendingSize = 0;
+
+    ColumnarModelBuilder(CAEXReader.SchemaBinding binding, XMLStreamReader reader) {
+        this.binding = binding;
+        this.reader = reader;
+    }
+
+    /**
+     * Builds the columnar model of the document.
+     *
+     * @return Columnar model.
+     * @throws JAXBException if the document can't be read.
+     */
+    ColumnarCAEXModel build() throws JAXBException {
+        try {
+            open(kindOf(binding.rootClass, binding.rootClass, null), binding.rootClass);
+
+            while (depth > 0) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    close();
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    ModelPlan.ElementPlan element = plans[depth - 1].elements.get(reader.getLocalName());
+
+                    if (element == null || element.kind == ModelPlan.Kind.IGNORED) {
+                        readText(false);
+                    } else if (element.kind == ModelPlan.Kind.SIMPLE) {
+                        addValue(element.name, readText(true));
+                    } else {
+                        open(kindOf(element, element.type, element.name), element.type);
+                    }
+                }
+            }
+
+            return model;
+        } catch (XMLStreamException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    /**
+     * Adds a node for the current element and its XML attributes.
+     *
+     * @param kind Kind of the node.
+     * @param type Model class of the element.
+     */
+    private void open(int kind, Class<?> type) {
+        ModelPlan plan = ModelPlan.of(type);
+        int parent = depth > 0 ? openNodes[depth - 1] : -1;
+        int node = model.kind.add(kind);
+
+        model.parent.add(parent);
+        model.firstChild.add(-1);
+        model.nextSibling.add(-1);
+        model.end.add(-1);
+        model.attributeStart.add(model.attributeName.size());
+        model.valueStart.add(-1);
+        model.valueCount.add(0);
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String ns = reader.getAttributeNamespace(i);
+            ModelPlan.AttributePlan attribute = ns == null || ns.isEmpty() ? plan.attributes.get(reader.getAttributeLocalName(i)) : null;
+
+            if (attribute != null) {
+                int offset = model.texts.add(reader.getAttributeValue(i));
+
+                model.attributeName.add(nameId(attribute.name));
+                model.attributeOffset.add(offset);
+                model.attributeLength.add(model.texts.size() - offset);
+            }
+        }
+
+        if (parent >= 0) {
+            if (lastChildren[depth - 1] >= 0) {
+                model.nextSibling.set(lastChildren[depth - 1], node);
+            } else {
+                model.firstChild.set(parent, node);
+            }
+
+            lastChildren[depth - 1] = node;
+        }
+
+        if (depth == openNodes.length) {
+            openNodes = Arrays.copyOf(openNodes, depth * 2);
+            lastChildren = Arrays.copyOf(lastChildren, depth * 2);
+            valueMarks = Arrays.copyOf(valueMarks, depth * 2);
+            plans = Arrays.copyOf(plans, depth * 2);
+        }
+
+        openNodes[depth] = node;
+        lastChildren[depth] = -1;
+        valueMarks[depth] = pendingSize;
+        plans[depth] = plan;
+        depth++;
+    }
+
+    /**
+     * Closes the node of the current element, storing its simple elements.
+     */
+    private void close() {
+        depth--;
+
+        int node = openNodes[depth];
+
+        model.end.set(node, model.size());
+        model.valueStart.set(node, model.valueName.size());
+        model.valueCount.set(node, (pendingSize - valueMarks[depth]) / 3);
+
+        for (int i = valueMarks[depth]; i < pendingSize; i += 3) {
+            model.valueName.add(pendingValues[i]);
+            model.valueOffset.add(pendingValues[i + 1]);
+            model.valueLength.add(pendingValues[i + 2]);
+        }
+
+        pendingSize = valueMarks[depth];
+    }
+
+    /**
+     * Adds a simple element to the current element.
+     *
+     * @param name Element name.
+     * @param text Text of the element.
+     */
+    private void addValue(String name, String text) {
+        int offset = model.texts.add(text);
+
+        if (pendingSize + 3 > pendingValues.length) {
+            pendingValues = Arrays.copyOf(pendingValues, pendingValues.length * 2);
+        }
+
+        pendingValues[pendingSize++] = nameId(name);
+        pendingValues[pendingSize++] = offset;
+        pendingValues[pendingSize++] = model.texts.size() - offset;
+    }
+
+    /**
+     * Reads the current element with its whole subtree.
+     *
+     * @param collect Whether text of the element should be collected.
+     * @return Text content of the element (including the text of its child elements) or null if it isn't collected.
+     */
+    private String readText(boolean collect) throws XMLStreamException {
+        StringBuilder sb = collect ? new StringBuilder() : null;
+        int level = 1;
+
+        while (level > 0) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                level++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                level--;
+            } else if (collect && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE)) {
+                sb.append(reader.getText());
+            }
+        }
+
+        return collect ? sb.toString() : null;
+    }
+
+    /**
+     * Gets kind of the nodes of an element.
+     *
+     * @param key Plan of the element (or the root class).
+     * @param type Model class of the element.
+     * @param elementName Element name (null for the root).
+     * @return Kind of the nodes.
+     */
+    private int kindOf(Object key, Class<?> type, String elementName) {
+        Integer res = kinds.get(key);
+
+        if (res == null) {
+            res = model.kindNames.size();
+            model.kindNames.add(elementName);
+            model.kindTypes.add(type);
+            kinds.put(key, res);
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets ID of an interned name, interning it if needed.
+     *
+     * @param name Name.
+     * @return ID of the name.
+     */
+    private int nameId(String name) {
+        Integer res = model.nameIds.get(name);
+
+        if (res == null) {
+            res = model.names.size();
+            model.names.add(name);
+            model.nameIds.put(name, res);
+        }
+
+        return res;
+    }
+}
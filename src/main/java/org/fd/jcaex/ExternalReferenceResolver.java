@@ -0,0 +1,227 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.JAXBException;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolver of the external references of a CAEX file.
+ * <p>
+ * A CAEX file can reference classes of other CAEX files through an alias defined by an ExternalReference element,
+ * e.g. {@code BaseLib@AutomationMLBaseRoleClassLib/AutomationMLBaseRole}. Referenced files are loaded on first access
+ * through a {@link LibraryCache}, so libraries shared by several project files are parsed only once.
+ * Resolution of a reference is a constant time lookup once the referenced library is loaded: the canonical path
+ * of each referenced file is kept, and files aren't checked for modifications until {@link #refresh()} is called.
+ * </p>
+ */
+public class ExternalReferenceResolver {
+
+    /**
+     * Separator between the alias and the class path of a reference.
+     */
+    public static final String ALIAS_SEPARATOR = "@";
+
+    private final CAEXFile caexFile;
+    private final LibraryCache cache;
+    private final Map<String, Path> aliases;
+
+    // Canonical paths of the referenced files, known once they are loaded
+    private final Map<String, Path> canonicalPaths = new ConcurrentHashMap<>();
+    private volatile Map<String, GenericCAEXObject> localClasses;
+
+    /**
+     * Creates a resolver using the shared {@link LibraryCache}.
+     *
+     * @param caexFile CAEX file whose external references are resolved.
+     * @param location Path of the CAEX file, relative reference paths are resolved against its directory.
+     */
+    public ExternalReferenceResolver(CAEXFile caexFile, Path location) {
+        this(caexFile, location, LibraryCache.getShared());
+    }
+
+    /**
+     * Creates a resolver.
+     *
+     * @param caexFile CAEX file whose external references are resolved.
+     * @param location Path of the CAEX file, relative reference paths are resolved against its directory.
+     * @param cache Cache of the referenced libraries.
+     */
+    public ExternalReferenceResolver(CAEXFile caexFile, Path location, LibraryCache cache) {
+        this.caexFile = caexFile;
+        this.cache = cache;
+
+        Path baseDir = location.toAbsolutePath().getParent();
+        Map<String, Path> aliasMap = new HashMap<>();
+
+        Object refs = caexFile.generalize().getChildren("ExternalReference");
+
+        if (refs instanceof List) {
+            for (Object ref : (List<?>) refs) {
+                GenericCAEXObject reference = (GenericCAEXObject) ref;
+                String alias = (String) reference.getAttribute("Alias");
+                String refPath = (String) reference.getAttribute("Path");
+
+                if (alias != null && refPath != null) {
+                    aliasMap.putIfAbsent(alias, toPath(baseDir, refPath));
+                }
+            }
+        }
+
+        this.aliases = Map.copyOf(aliasMap);
+    }
+
+    /**
+     * Creates a resolver for a CAEX file. The file itself is loaded through the library cache as well.
+     *
+     * @param path Path of the CAEX file.
+     * @param cache Cache of the file and its referenced libraries.
+     * @return Resolver of the file.
+     * @throws IOException if the file can't be read.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the file doesn't conform to its CAEX schema.
+     * @throws SAXException if the shared reader can't be created.
+     */
+    public static ExternalReferenceResolver forFile(Path path, LibraryCache cache) throws IOException, CAEXFileParseException, JAXBException, SAXException {
+        CAEXLibrary library = cache.get(path);
+
+        ExternalReferenceResolver res = new ExternalReferenceResolver(library.getCAEXFile(), library.getPath(), cache);
+        res.localClasses = Map.copyOf(CAEXLibrary.indexClasses(library.getCAEXFile().generalize()));
+
+        return res;
+    }
+
+    /**
+     * Gets the CAEX file of this resolver.
+     *
+     * @return Object of the CAEX file.
+     */
+    public CAEXFile getCAEXFile() {
+        return caexFile;
+    }
+
+    /**
+     * Gets aliases defined by the ExternalReference elements of the file.
+     *
+     * @return Map of aliases and paths of the referenced files.
+     */
+    public Map<String, Path> getAliases() {
+        return aliases;
+    }
+
+    /**
+     * Gets the library referenced by an alias. The library is loaded through the cache on first access,
+     * later accesses don't touch the file system. Modifications of the file are picked up after {@link #refresh()}.
+     *
+     * @param alias Alias of an ExternalReference.
+     * @return Referenced library or null if the alias isn't defined.
+     * @throws IOException if the file can't be read.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the file doesn't conform to its CAEX schema.
+     * @throws SAXException if the shared reader can't be created.
+     */
+    public CAEXLibrary getLibrary(String alias) throws IOException, CAEXFileParseException, JAXBException, SAXException {
+        Path path = aliases.get(alias);
+
+        if (path == null) {
+            return null;
+        }
+
+        // Libraries aren't kept by the resolver, so that evicted libraries can be collected
+        Path canonicalPath = canonicalPaths.get(alias);
+        CAEXLibrary res = canonicalPath != null ? cache.getIfCached(canonicalPath) : null;
+
+        if (res == null) {
+            res = cache.get(path);
+            canonicalPaths.put(alias, res.getPath());
+        }
+
+        return res;
+    }
+
+    /**
+     * Checks the files of the libraries loaded by this resolver for modifications.
+     * Modified files are read again through the cache, so later resolutions use their current content.
+     *
+     * @throws IOException if a file can't be read.
+     * @throws CAEXFileParseException if a file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if a file doesn't conform to its CAEX schema.
+     * @throws SAXException if the shared reader can't be created.
+     */
+    public void refresh() throws IOException, CAEXFileParseException, JAXBException, SAXException {
+        for (String alias : canonicalPaths.keySet()) {
+            canonicalPaths.put(alias, cache.get(aliases.get(alias)).getPath());
+        }
+    }
+
+    /**
+     * Resolves a class reference (e.g. the value of RefBaseClassPath or RefRoleClassPath).
+     * References in the form Alias@ClassPath are resolved in the referenced library,
+     * references without an alias are resolved in the CAEX file of this resolver.
+     *
+     * @param reference Class reference.
+     * @return Generic object of the referenced class or null if it can't be found.
+     * @throws IOException if the referenced file can't be read.
+     * @throws CAEXFileParseException if the referenced file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the referenced file doesn't conform to its CAEX schema.
+     * @throws SAXException if the shared reader can't be created.
+     */
+    public GenericCAEXObject resolve(String reference) throws IOException, CAEXFileParseException, JAXBException, SAXException {
+        int sepIdx = reference.indexOf(ALIAS_SEPARATOR);
+
+        if (sepIdx < 0) {
+            return getLocalClasses().get(reference);
+        }
+
+        CAEXLibrary library = getLibrary(reference.substring(0, sepIdx));
+
+        return library != null ? library.lookup(reference.substring(sepIdx + ALIAS_SEPARATOR.length())) : null;
+    }
+
+    /**
+     * Gets the class index of the CAEX file of this resolver. It's built on first access.
+     *
+     * @return Map of class paths and class objects.
+     */
+    private Map<String, GenericCAEXObject> getLocalClasses() {
+        Map<String, GenericCAEXObject> res = localClasses;
+
+        if (res == null) {
+            res = Map.copyOf(CAEXLibrary.indexClasses(caexFile.generalize()));
+            localClasses = res;
+        }
+
+        return res;
+    }
+
+    /**
+     * Converts the Path attribute of an ExternalReference to a file path.
+     *
+     * @param baseDir Directory of the referencing file.
+     * @param refPath Value of the Path attribute (file URI or absolute or relative path).
+     * @return Path of the referenced file.
+     */
+    static Path toPath(Path baseDir, String refPath) {
+        if (refPath.regionMatches(true, 0, "file:", 0, 5)) {
+            return Path.of(URI.create(refPath.replace(" ", "%20")));
+        }
+
+        // Paths written on Windows use backslashes
+        Path path = Path.of(refPath.replace('\\', '/'));
+
+        return baseDir == null || path.isAbsolute() ? path : baseDir.resolve(path).normalize();
+    }
+
+    @Override
+    public String toString() {
+        return "ExternalReferenceResolver{" +
+                "aliases=" + aliases +
+                '}';
+    }
+}
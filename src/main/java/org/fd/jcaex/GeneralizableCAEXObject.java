@@ -2,7 +2,15 @@ package org.fd.jcaex;
 
 public interface GeneralizableCAEXObject {
 
+    /**
+     * Generalizes this object. Objects of a file with a loaded model (see {@link CAEXModel#load(CAEXFile)})
+     * return their generic object from the model, other objects are generalized into a fresh tree.
+     *
+     * @return Generalized CAEX object.
+     */
     default GenericCAEXObject generalize() {
-        return GenericCAEXObject.from(this);
+        GenericCAEXObject res = CAEXModel.findLoaded(this);
+
+        return res != null ? res : GenericCAEXObject.from(this);
     }
 }
@@ -0,0 +1,49 @@
+package org.fd.jcaex;
+
+import java.util.List;
+
+/**
+ * Receiver of the XML attributes and child elements of a CAEX object being generalized.
+ * <p>
+ * A {@link Generalizer} reports the annotated fields of a model class to a sink in the order
+ * {@link GenericCAEXObject#from(GeneralizableCAEXObject)} visits them: fields of the class itself first,
+ * then fields of its superclasses. When the same name is reported more than once, the last report wins.
+ * </p>
+ */
+public interface GeneralizationSink {
+
+    /**
+     * Reports an XML attribute. It's added only if its value is set or it's a required attribute.
+     *
+     * @param name Attribute name.
+     * @param value Attribute value.
+     * @param required Whether the attribute is required by the schema.
+     */
+    void attribute(String name, Object value, boolean required);
+
+    /**
+     * Reports a list of generalizable child elements. Nothing is added if the list is null.
+     *
+     * @param elementName Element name of the children.
+     * @param values Child objects.
+     */
+    void children(String elementName, List<? extends GeneralizableCAEXObject> values);
+
+    /**
+     * Reports a single generalizable child element. Nothing is added if the child is null.
+     *
+     * @param elementName Element name of the child.
+     * @param value Child object.
+     */
+    void child(String elementName, GeneralizableCAEXObject value);
+
+    /**
+     * Reports a simple child element (text or non-generalizable object).
+     * It's added only if its value is set or it's a required element.
+     *
+     * @param elementName Element name of the child.
+     * @param value Value of the child.
+     * @param required Whether the element is required by the schema.
+     */
+    void simple(String elementName, Object value, boolean required);
+}
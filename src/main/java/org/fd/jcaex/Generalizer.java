@@ -0,0 +1,34 @@
+package org.fd.jcaex;
+
+/**
+ * Generalizer of a CAEX model class.
+ * <p>
+ * Generalizers of the v2.15 and v3.0 model classes are generated at compile time: they read the annotated fields
+ * of a class straight, without reflection. Classes without a generated generalizer are generalized reflectively.
+ * </p>
+ *
+ * @param <T> Model class.
+ */
+@FunctionalInterface
+public interface Generalizer<T> {
+
+    /**
+     * Reports the XML attributes and child elements of an object to a sink.
+     *
+     * @param caexObject Object being generalized.
+     * @param sink Receiver of attributes and children.
+     */
+    void generalize(T caexObject, GeneralizationSink sink);
+
+    /**
+     * Gets the generalizer of a model class.
+     *
+     * @param type Model class.
+     * @param <T> Model class.
+     * @return Generated generalizer of the class, or a reflective one if none was generated.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Generalizer<T> of(Class<T> type) {
+        return (Generalizer<T>) Generalizers.GENERALIZERS.get(type);
+    }
+}
@@ -0,0 +1,88 @@
+package org.fd.jcaex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of generalizers.
+ * <p>
+ * Generated generalizers of a model package are held by its GeneratedGeneralizers class, which is looked up
+ * once per package. Classes without a generated generalizer get a reflective one based on their {@link ModelPlan}.
+ * </p>
+ */
+final class Generalizers {
+
+    /**
+     * Simple name of the generated class holding the generalizers of a package.
+     */
+    static final String GENERATED_CLASS_NAME = "GeneratedGeneralizers";
+
+    static final ClassValue<Generalizer<?>> GENERALIZERS = new ClassValue<>() {
+        @Override
+        protected Generalizer<?> computeValue(Class<?> type) {
+            Generalizer<?> res = generatedGeneralizersOf(type.getPackageName()).get(type);
+
+            return res != null ? res : reflective(ModelPlan.of(type));
+        }
+    };
+
+    private static final Map<String, Map<Class<?>, Generalizer<?>>> GENERATED = new ConcurrentHashMap<>();
+
+    private Generalizers() {}
+
+    /**
+     * Gets generated generalizers of a package.
+     *
+     * @param packageName Name of the package.
+     * @return Map of model classes and their generalizers, empty if nothing was generated for the package.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Class<?>, Generalizer<?>> generatedGeneralizersOf(String packageName) {
+        return GENERATED.computeIfAbsent(packageName, name -> {
+            try {
+                Class<?> generated = Class.forName(name + "." + GENERATED_CLASS_NAME, true, Generalizers.class.getClassLoader());
+
+                return (Map<Class<?>, Generalizer<?>>) generated.getMethod("generalizers").invoke(null);
+            } catch (ClassNotFoundException e) {
+                return Map.of();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Invalid generated generalizers in package " + name, e);
+            }
+        });
+    }
+
+    /**
+     * Creates a reflective generalizer.
+     *
+     * @param plan Plan of the model class.
+     * @return Generalizer reading fields through the method handles of the plan.
+     */
+    private static Generalizer<Object> reflective(ModelPlan plan) {
+        return (caexObject, sink) -> {
+            for (ModelPlan.MemberPlan member : plan.members) {
+                switch (member.kind) {
+                    case ATTRIBUTE:
+                        sink.attribute(member.name, member.get(caexObject), member.required);
+                        break;
+
+                    case LIST:
+                        @SuppressWarnings("unchecked")
+                        List<? extends GeneralizableCAEXObject> values = (List<? extends GeneralizableCAEXObject>) member.get(caexObject);
+                        sink.children(member.name, values);
+                        break;
+
+                    case SINGLE:
+                        sink.child(member.name, (GeneralizableCAEXObject) member.get(caexObject));
+                        break;
+
+                    case SIMPLE:
+                        sink.simple(member.name, member.get(caexObject), member.required);
+                        break;
+
+                    default:
+                }
+            }
+        };
+    }
+}
@@ -1,12 +1,13 @@
 package org.fd.jcaex;
 
-import jakarta.xml.bind.annotation.XmlAttribute;
-import jakarta.xml.bind.annotation.XmlElement;
-
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Class of generic CAEX object.
@@ -14,43 +15,120 @@ import java.util.stream.Collectors;
  * Using it, it is possible to implement several functions with only one implementation.
  * A GenericCAEXObject always contains the reference to its source CAEX object,
  * making it easy to switch back to work with the original object.
+ * <p>
+ * Lazily generalized objects (see {@link #from(GeneralizableCAEXObject, boolean)}) generalize
+ * their child element groups only when they are accessed first.
+ * </p>
  */
-public class GenericCAEXObject {
+public class GenericCAEXObject implements CAEXNavigable<GenericCAEXObject> {
+
+    /**
+     * Lists with more items than this are split into parallel tasks by {@link #from(GeneralizableCAEXObject, ForkJoinPool)}.
+     */
+    public static final int PARALLEL_THRESHOLD = 32;
+
+    private static final Object[] NO_VALUES = new Object[0];
+    private static final GenericCAEXObject[] NO_CHILDREN = new GenericCAEXObject[0];
 
     private GenericCAEXObject parent;
+    private int indexInParent = -1;
     private String elementName;
-    private final Object sourceCAEXObject;
-    private final Map<String, Object> attributes;
-    private final Map<String, Object> children;
+    private volatile Object sourceCAEXObject;
+    private final SourceLink sourceLink;
+
+    // Names of attributes and child groups are kept in a shape shared by similar objects,
+    // values are kept in arrays in the order of the shape. Child groups are in document order.
+    private final SymbolTable.Shape shape;
+    private final Object[] attributeValues;
+
+    // Child groups: GenericCAEXObject[] for lists, GenericCAEXObject or simple value otherwise.
+    // Lazily generalized objects keep the source objects of the groups here.
+    private final Object[] childGroups;
+    private final AtomicReferenceArray<Object> lazyGroups;
+
+    // Model of a loaded CAEX file the lazily generalized groups are registered in (null for other objects)
+    private final CAEXModel model;
+
+    // Structural hash of the subtree, 0 until it's computed
+    private volatile long structuralHash;
+
+    private GenericCAEXObject(Object caexObject, SourceLink sourceLink, Class<?> type, Map<String, Object> attributes, Map<String, Object> children, boolean lazy, CAEXModel model)  {
+        SymbolTable symbols = SymbolTable.forModel(type);
 
-    private GenericCAEXObject(Object caexObject, Map<String, Object> attributes, Map<String, Object> children)  {
         this.sourceCAEXObject = caexObject;
-        this.attributes = Map.copyOf(attributes);
+        this.sourceLink = sourceLink;
+        this.shape = symbols.shape(attributes.keySet(), ModelPlan.of(type).inDocumentOrder(children.keySet()));
+        this.attributeValues = shape.attributes.length == 0 ? NO_VALUES : new Object[shape.attributes.length];
+        this.childGroups = shape.children.length == 0 ? NO_VALUES : new Object[shape.children.length];
+        this.lazyGroups = lazy ? new AtomicReferenceArray<>(childGroups.length) : null;
+        this.model = model;
+
+        for (int i = 0; i < attributeValues.length; i++) {
+            attributeValues[i] = attributes.get(symbols.name(shape.attributes[i]));
+        }
 
-        children.forEach((key, val) -> {
-            if (val instanceof GenericCAEXObject) {
-                ((GenericCAEXObject) val).setParent(this);
+        int childIdx = 0;
+
+        for (int i = 0; i < childGroups.length; i++) {
+            Object val = children.get(symbols.name(shape.children[i]));
+
+            if (!lazy && val instanceof List) {
+                val = ((List<?>) val).isEmpty() ? NO_CHILDREN : ((List<?>) val).toArray(NO_CHILDREN);
             }
 
-            if (val instanceof List) {
-                ((List<?>) val).forEach(item -> {
-                    if (item instanceof GenericCAEXObject) {
-                        ((GenericCAEXObject) item).setParent(this);
-                    }
-                });
+            if (!lazy && val instanceof GenericCAEXObject[]) {
+                for (GenericCAEXObject item : (GenericCAEXObject[]) val) {
+                    item.setParent(this, childIdx++);
+                }
+            } else if (!lazy && val instanceof GenericCAEXObject) {
+                ((GenericCAEXObject) val).setParent(this, childIdx++);
             }
-        });
 
-        this.children = Map.copyOf(children);
+            childGroups[i] = val;
+        }
+    }
+
+    /**
+     * Creates a generic object which isn't generalized from a source object, e.g. one built straight from a document.
+     *
+     * @param elementName Element name (null for root objects).
+     * @param sourceLink Link used for looking up the source object on demand (null if there is no source object).
+     * @param type Model class of the element.
+     * @param attributes Map of attributes.
+     * @param children Map of child objects.
+     * @return Newly created generic object.
+     */
+    static GenericCAEXObject create(String elementName, SourceLink sourceLink, Class<?> type, Map<String, Object> attributes, Map<String, Object> children) {
+        GenericCAEXObject res = new GenericCAEXObject(null, sourceLink, type, attributes, children, false, null);
+        res.setElementName(elementName);
+
+        return res;
     }
 
     /**
      * Gets the original CAEX object of this generic object.
+     * Objects built straight from a document look up their source object on first call.
      *
-     * @return Original CAEX object.
+     * @return Original CAEX object or null if this object has no source object.
      */
     public Object getSourceCAEXObject() {
-        return sourceCAEXObject;
+        Object res = sourceCAEXObject;
+
+        if (res == null && sourceLink != null) {
+            sourceLink.link();
+            res = sourceCAEXObject;
+        }
+
+        return res;
+    }
+
+    /**
+     * Sets the original CAEX object of this generic object.
+     *
+     * @param sourceCAEXObject Original CAEX object.
+     */
+    void setSourceCAEXObject(Object sourceCAEXObject) {
+        this.sourceCAEXObject = sourceCAEXObject;
     }
 
     /**
@@ -58,10 +136,20 @@ public class GenericCAEXObject {
      * These represent the real attributes of corresponding XML node.
      * Keys are attribute names as in XML.
      *
-     * @return Map of attributes.
+     * @return Unmodifiable map of attributes.
      */
     public Map<String, Object> getAttributes() {
-        return attributes;
+        return new ArrayMap(shape.attributes) {
+            @Override
+            int indexOf(Object key) {
+                return shape.indexOfAttribute(key);
+            }
+
+            @Override
+            Object valueAt(int idx) {
+                return attributeValues[idx];
+            }
+        };
     }
 
     /**
@@ -70,19 +158,37 @@ public class GenericCAEXObject {
      * @param attrName Name of attribute.
      * @return Value of attribute or null if attribute doesn't exist.
      */
+    @Override
     public Object getAttribute(String attrName) {
-        return attributes.get(attrName);
+        int idx = shape.indexOfAttribute(attrName);
+
+        return idx < 0 ? null : attributeValues[idx];
+    }
+
+    @Override
+    public boolean hasAttribute(String attrName) {
+        return shape.indexOfAttribute(attrName) >= 0;
     }
 
     /**
      * Gets child objects of this CAEX object.
-     * Keys are element names as in XML.
+     * Keys are element names as in XML, in document order.
      *
-     * @return Map of child objects. Note: it's possible to have several children with the same element name.
+     * @return Unmodifiable map of child objects. Note: it's possible to have several children with the same element name.
      * So keys in this map are always element names, and values for such keys are lists.
      */
     public Map<String, Object> getChildren() {
-        return children;
+        return new ArrayMap(shape.children) {
+            @Override
+            int indexOf(Object key) {
+                return shape.indexOfChild(key);
+            }
+
+            @Override
+            Object valueAt(int idx) {
+                return childGroup(idx);
+            }
+        };
     }
 
     /**
@@ -92,7 +198,200 @@ public class GenericCAEXObject {
      * @return Object of element (or null if no such child with the given name).
      */
     public Object getChildren(String elementName) {
-        return children.get(elementName);
+        int idx = shape.indexOfChild(elementName);
+
+        return idx < 0 ? null : childGroup(idx);
+    }
+
+    /**
+     * Gets generic child objects based on given element name. Other child groups aren't generalized by this.
+     *
+     * @param elementName Name of child element (e.g. InternalElement).
+     * @return Unmodifiable list of child objects, empty if there is no such child or the child is a simple value.
+     */
+    @Override
+    public List<GenericCAEXObject> childrenNamed(String elementName) {
+        int idx = shape.indexOfChild(elementName);
+        Object val = idx < 0 ? null : rawChildGroup(idx);
+
+        if (val instanceof GenericCAEXObject[]) {
+            return Collections.unmodifiableList(Arrays.asList((GenericCAEXObject[]) val));
+        }
+
+        return val instanceof GenericCAEXObject ? List.of((GenericCAEXObject) val) : List.of();
+    }
+
+    /**
+     * Gets a child group.
+     *
+     * @param idx Index of the group.
+     * @return Unmodifiable list of generic objects, generic object or simple value of the group.
+     */
+    private Object childGroup(int idx) {
+        Object res = rawChildGroup(idx);
+
+        return res instanceof GenericCAEXObject[] ? Collections.unmodifiableList(Arrays.asList((GenericCAEXObject[]) res)) : res;
+    }
+
+    /**
+     * Gets number of child groups.
+     *
+     * @return Number of child groups.
+     */
+    int childGroupCount() {
+        return childGroups.length;
+    }
+
+    /**
+     * Gets a child group as it's stored. Groups of lazily generalized objects are generalized on first access.
+     * Concurrent callers may generalize the same group, but only the first published result is ever returned.
+     *
+     * @param idx Index of the group.
+     * @return Array of generic objects, generic object or simple value of the group. Arrays must not be modified.
+     */
+    Object rawChildGroup(int idx) {
+        Object res;
+
+        if (lazyGroups == null) {
+            res = childGroups[idx];
+        } else {
+            res = lazyGroups.get(idx);
+
+            if (res == null) {
+                res = generalizeGroup(shape.symbols.name(shape.children[idx]), childGroups[idx], childOffset(idx));
+
+                if (!lazyGroups.compareAndSet(idx, null, res)) {
+                    res = lazyGroups.get(idx);
+                } else if (model != null) {
+                    model.register(res);
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets number of child objects in a group. Groups of lazily generalized objects aren't generalized by this.
+     *
+     * @param idx Index of the group.
+     * @return Number of generic child objects of the group.
+     */
+    private int childGroupSize(int idx) {
+        Object val = lazyGroups != null ? lazyGroups.get(idx) : childGroups[idx];
+
+        if (val == null) {
+            // Group of a lazily generalized object, which isn't generalized yet
+            val = childGroups[idx];
+        }
+
+        if (val instanceof Object[]) {
+            return ((Object[]) val).length;
+        }
+
+        if (val instanceof List) {
+            return ((List<?>) val).size();
+        }
+
+        return val instanceof GenericCAEXObject || val instanceof GeneralizableCAEXObject ? 1 : 0;
+    }
+
+    /**
+     * Gets position of the first child object of a group among all child objects.
+     *
+     * @param idx Index of the group.
+     * @return Position of the first child of the group.
+     */
+    private int childOffset(int idx) {
+        int res = 0;
+
+        for (int i = 0; i < idx; i++) {
+            res += childGroupSize(i);
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets number of child objects (generic objects of all child groups).
+     *
+     * @return Number of child objects.
+     */
+    @Override
+    public int childCount() {
+        return childOffset(childGroups.length);
+    }
+
+    /**
+     * Gets a child object by its position in document order.
+     * Child objects are grouped by element name (e.g. Attribute, ExternalInterface, InternalElement),
+     * in the order defined by the CAEX schema. Simple child elements (e.g. Description) aren't counted.
+     *
+     * @param idx Position of the child.
+     * @return Child object.
+     * @throws IndexOutOfBoundsException if there is no child at the given position.
+     */
+    @Override
+    public GenericCAEXObject childAt(int idx) {
+        int offset = idx;
+
+        for (int i = 0; i < childGroups.length && offset >= 0; i++) {
+            int size = childGroupSize(i);
+
+            if (offset < size) {
+                Object val = rawChildGroup(i);
+
+                return val instanceof GenericCAEXObject[] ? ((GenericCAEXObject[]) val)[offset] : (GenericCAEXObject) val;
+            }
+
+            offset -= size;
+        }
+
+        throw new IndexOutOfBoundsException("Child index " + idx + " out of bounds for " + childCount() + " children");
+    }
+
+    /**
+     * Gets position of this object among the child objects of its parent.
+     *
+     * @return Position of this object, so that {@code getParent().childAt(indexInParent()) == this}, or -1 for root objects.
+     */
+    public int indexInParent() {
+        return indexInParent;
+    }
+
+    /**
+     * Generalizes the source object(s) of a child group lazily.
+     *
+     * @param elementName Element name of the group.
+     * @param source Source list, source object or simple value.
+     * @param offset Position of the first child of the group among all child objects.
+     * @return Generalized group.
+     */
+    private Object generalizeGroup(String elementName, Object source, int offset) {
+        if (source instanceof GeneralizableCAEXObject) {
+            return generalizeChild(elementName, (GeneralizableCAEXObject) source, offset);
+        }
+
+        if (source instanceof List) {
+            List<?> sourceList = (List<?>) source;
+            GenericCAEXObject[] res = sourceList.isEmpty() ? NO_CHILDREN : new GenericCAEXObject[sourceList.size()];
+
+            for (int i = 0; i < res.length; i++) {
+                res[i] = generalizeChild(elementName, (GeneralizableCAEXObject) sourceList.get(i), offset + i);
+            }
+
+            return res;
+        }
+
+        return source;
+    }
+
+    private GenericCAEXObject generalizeChild(String elementName, GeneralizableCAEXObject source, int indexInParent) {
+        GenericCAEXObject res = generalize(source, Mode.LAZY, model);
+        res.setElementName(elementName);
+        res.setParent(this, indexInParent);
+
+        return res;
     }
 
     /**
@@ -100,6 +399,7 @@ public class GenericCAEXObject {
      *
      * @return Element name.
      */
+    @Override
     public String getElementName() {
         return elementName;
     }
@@ -113,13 +413,202 @@ public class GenericCAEXObject {
         return parent;
     }
 
+    /**
+     * Gets an iterator over this object and its descendants in pre-order (parents before their children).
+     * The iterator uses an explicit stack, so deep trees can be iterated as well.
+     *
+     * @return Pre-order iterator starting with this object.
+     */
+    @Override
+    public Iterator<GenericCAEXObject> preOrderIterator() {
+        return new Traversal.PreOrderIterator(this);
+    }
+
+    /**
+     * Gets this object. Generic objects don't change while other objects are navigated.
+     *
+     * @return This object.
+     */
+    @Override
+    public GenericCAEXObject retain() {
+        return this;
+    }
+
+    /**
+     * Gets an iterator over this object and its descendants in post-order (children before their parents).
+     * The iterator uses an explicit stack, so deep trees can be iterated as well.
+     *
+     * @return Post-order iterator ending with this object.
+     */
+    public Iterator<GenericCAEXObject> postOrderIterator() {
+        return new Traversal.PostOrderIterator(this);
+    }
+
+    /**
+     * Walks this object and its descendants in pre-order.
+     * The visitor controls whether the subtree of a visited object is walked and whether the walk goes on at all.
+     *
+     * @param visitor Visitor of the objects.
+     * @return False if the visitor stopped the walk, true otherwise.
+     */
+    public boolean walk(CAEXVisitor visitor) {
+        return Traversal.walk(this, visitor);
+    }
+
+    /**
+     * Gets a stream of the descendants of this object in pre-order.
+     * The stream can be processed in parallel, subtrees are split between tasks without intermediate collections.
+     *
+     * @return Stream of descendant objects (without this object).
+     */
+    public Stream<GenericCAEXObject> descendants() {
+        return StreamSupport.stream(new Traversal.DescendantSpliterator(this), false);
+    }
+
+    /**
+     * Gets structural hash of this object and its descendants.
+     * The hash is computed bottom-up from the element name, the attributes (ordered by name), the simple child elements
+     * and the hashes of the child objects in document order, Merkle-style. Subtrees with the same structure and
+     * values have the same hash, regardless of their position or their source objects, so identical subtrees can be
+     * found and unchanged subtrees of two models can be skipped by comparing hashes.
+     * <p>
+     * The hash is computed on first call without recursion and is cached by each object of the subtree.
+     * Different subtrees may have the same hash in rare cases, so compare them when a certain answer is needed.
+     * </p>
+     *
+     * @return 64-bit structural hash.
+     */
+    public long structuralHash() {
+        long res = structuralHash;
+
+        if (res != 0) {
+            return res;
+        }
+
+        Deque<GenericCAEXObject> stack = new ArrayDeque<>();
+        stack.push(this);
+
+        // Objects are hashed after their children, subtrees hashed already aren't entered
+        while (!stack.isEmpty()) {
+            GenericCAEXObject obj = stack.peek();
+
+            if (obj.structuralHash == 0 && obj.pushUnhashedChildren(stack)) {
+                stack.pop();
+                obj.structuralHash = obj.computeStructuralHash();
+            } else if (obj.structuralHash != 0) {
+                stack.pop();
+            }
+        }
+
+        return structuralHash;
+    }
+
+    /**
+     * Pushes the child objects which haven't been hashed yet onto a stack.
+     *
+     * @param stack Stack.
+     * @return True if all child objects have been hashed.
+     */
+    private boolean pushUnhashedChildren(Deque<GenericCAEXObject> stack) {
+        boolean res = true;
+
+        for (int i = 0; i < childGroups.length; i++) {
+            Object val = rawChildGroup(i);
+
+            if (val instanceof GenericCAEXObject[]) {
+                for (GenericCAEXObject child : (GenericCAEXObject[]) val) {
+                    if (child.structuralHash == 0) {
+                        stack.push(child);
+                        res = false;
+                    }
+                }
+            } else if (val instanceof GenericCAEXObject && ((GenericCAEXObject) val).structuralHash == 0) {
+                stack.push((GenericCAEXObject) val);
+                res = false;
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Computes structural hash of this object from the hashes of its child objects.
+     *
+     * @return Structural hash (never 0).
+     */
+    private long computeStructuralHash() {
+        long res = hashOf(elementName);
+
+        for (int i : shape.attributeNameOrder()) {
+            res = combineHash(res, hashOf(shape.symbols.name(shape.attributes[i])));
+            res = combineHash(res, hashOf(attributeValues[i]));
+        }
+
+        for (int i = 0; i < childGroups.length; i++) {
+            Object val = rawChildGroup(i);
+            res = combineHash(res, hashOf(shape.symbols.name(shape.children[i])));
+
+            if (val instanceof GenericCAEXObject[]) {
+                GenericCAEXObject[] group = (GenericCAEXObject[]) val;
+                res = combineHash(res, group.length);
+
+                for (GenericCAEXObject child : group) {
+                    res = combineHash(res, child.structuralHash);
+                }
+            } else if (val instanceof GenericCAEXObject) {
+                res = combineHash(res, ((GenericCAEXObject) val).structuralHash);
+            } else {
+                res = combineHash(res, hashOf(val));
+            }
+        }
+
+        return res == 0 ? 1 : res;
+    }
+
+    /**
+     * Computes 64-bit FNV-1a hash of the text of a value.
+     * Simple model objects (e.g. Description) hash by their content, as their string form contains all their fields.
+     *
+     * @param value Value (may be null).
+     * @return Hash of the value.
+     */
+    private static long hashOf(Object value) {
+        if (value == null) {
+            return 0x5bd1e9955bd1e995L;
+        }
+
+        String text = value.toString();
+        long res = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < text.length(); i++) {
+            res = (res ^ text.charAt(i)) * 0x100000001b3L;
+        }
+
+        return res;
+    }
+
+    /**
+     * Combines a hash with the next value, depending on their order.
+     *
+     * @param hash Hash so far.
+     * @param value Next value.
+     * @return Combined hash.
+     */
+    private static long combineHash(long hash, long value) {
+        long res = (Long.rotateLeft(hash, 23) ^ value) * 0x9e3779b97f4a7c15L;
+
+        return res ^ (res >>> 29);
+    }
+
     /**
      * Sets parent object.
      *
      * @param parent PArent object.
+     * @param indexInParent Position of this object among the child objects of the parent.
      */
-    private void setParent(GenericCAEXObject parent) {
+    private void setParent(GenericCAEXObject parent, int indexInParent) {
         this.parent = parent;
+        this.indexInParent = indexInParent;
     }
 
     /**
@@ -133,123 +622,84 @@ public class GenericCAEXObject {
 
     /**
      * Generates a GenericCAEXObject from a GeneralizableCAEXObject.
+     * Fields are read by the generalizer generated for the class at compile time.
+     * Classes without a generated generalizer are generalized reflectively.
      *
      * @param caexObject Source CAEX object for generalization.
      * @return Generalized CAEX object.
+     * @see Generalizer#of(Class)
      */
     public static GenericCAEXObject from(GeneralizableCAEXObject caexObject) {
+        return from(caexObject, false);
+    }
 
-        // Get fields
-        ArrayList<Field> fields = new ArrayList<>(Arrays.asList(caexObject.getClass().getDeclaredFields()));
+    /**
+     * Generates a GenericCAEXObject from a GeneralizableCAEXObject, either eagerly or lazily.
+     * <p>
+     * A lazily generalized object only reads its attributes up front. Each child element group is generalized
+     * (with parents set) when it's first accessed through {@link #getChildren(String)} or {@link #getChildren()},
+     * and its children are generalized lazily as well. Lazy objects can be shared between threads,
+     * but the source objects must not be modified until all groups have been accessed.
+     * </p>
+     *
+     * @param caexObject Source CAEX object for generalization.
+     * @param lazy Whether child objects should be generalized on first access.
+     * @return Generalized CAEX object.
+     */
+    public static GenericCAEXObject from(GeneralizableCAEXObject caexObject, boolean lazy) {
+        return generalize(caexObject, lazy ? Mode.LAZY : Mode.EAGER, null);
+    }
 
-        // Get inherited fields
-        Class<?> superClass = caexObject.getClass().getSuperclass();
+    /**
+     * Generates a GenericCAEXObject from a GeneralizableCAEXObject in parallel.
+     * <p>
+     * Lists of child objects longer than {@link #PARALLEL_THRESHOLD} (e.g. internal elements or classes of a library)
+     * are split into fork/join tasks. The result is the same as the one of {@link #from(GeneralizableCAEXObject)},
+     * including the order of children and their parents.
+     * </p>
+     *
+     * @param caexObject Source CAEX object for generalization.
+     * @param pool Pool executing the tasks.
+     * @return Generalized CAEX object.
+     */
+    public static GenericCAEXObject from(GeneralizableCAEXObject caexObject, ForkJoinPool pool) {
+        return pool.invoke(new RecursiveTask<GenericCAEXObject>() {
+            @Override
+            protected GenericCAEXObject compute() {
+                return generalize(caexObject, Mode.PARALLEL, null);
+            }
+        });
+    }
 
-        while (superClass != null && !superClass.isInstance(Object.class)) {
-            fields.addAll(Arrays.asList(superClass.getDeclaredFields()));
-            superClass = superClass.getSuperclass();
-        }
+    /**
+     * Generates a lazily generalized root object for the model of a loaded CAEX file.
+     * Each group of the tree is registered in the model when it's generalized.
+     *
+     * @param caexFile CAEX file.
+     * @param model Model of the file.
+     * @return Lazily generalized object of the file.
+     */
+    static GenericCAEXObject from(CAEXFile caexFile, CAEXModel model) {
+        return generalize(caexFile, Mode.LAZY, model);
+    }
 
-        // Add attribute fields to the attributes map
-        // and add other fields to children if they are generalizable
-        Map<String, Object> attributes = new TreeMap<>();
-        Map<String, Object> children = new TreeMap<>();
-        fields.forEach(field -> {
-            try {
-                XmlAttribute xmlAttrAnnotation = field.getAnnotation(XmlAttribute.class);
-                XmlElement xmlElementAnnotation = field.getAnnotation(XmlElement.class);
-
-                // Attributes
-                if (xmlAttrAnnotation != null) {
-                    if (field.trySetAccessible()) {
-                        Object attrVal = field.get(caexObject);
-                        if (attrVal != null || xmlAttrAnnotation.required()) {
-                            attributes.put(xmlAttrAnnotation.name(), attrVal);
-                        }
+    @SuppressWarnings("unchecked")
+    private static GenericCAEXObject generalize(GeneralizableCAEXObject caexObject, Mode mode, CAEXModel model) {
+        Collector collector = new Collector(mode);
 
-                        field.setAccessible(false);
-                    }
-                } else if (xmlElementAnnotation != null) {
-                    String elementName = xmlElementAnnotation.name();
-
-                    // Children (if generalizable)
-                    if (field.getGenericType() instanceof ParameterizedType) {
-
-                        ParameterizedType fieldType = (ParameterizedType) field.getGenericType();
-                        boolean isList = fieldType.getRawType().equals(List.class);
-
-                        // Check if generic type of List implements GeneralizableCAEXObject interface
-                        boolean isGeneralizable = isGeneralizable((Class<?>) fieldType.getActualTypeArguments()[0]);
-
-                        if (isList && isGeneralizable) {
-                            // That's a list
-                            if (field.trySetAccessible()) {
-                                try {
-                                    List<?> sourceList = (List<?>) field.get(caexObject);
-
-                                    if (sourceList != null) {
-                                        List<GenericCAEXObject> childList = new ArrayList<>();
-
-                                        sourceList.forEach(listItem -> {
-                                            GenericCAEXObject obj = ((GeneralizableCAEXObject) listItem).generalize();
-                                            obj.setElementName(elementName);
-                                            childList.add(obj);
-                                        });
-
-                                        children.put(xmlElementAnnotation.name(), childList);
-                                    }
-                                } catch (IllegalAccessException e) {
-                                    throw new RuntimeException(e);
-                                }
-                                field.setAccessible(false);
-                            }
-                        }
-                    } else if (isGeneralizable(field.getType())) {
-                        // It's a single generalizable object
-                        if (field.trySetAccessible()) {
-                            try {
-                                GeneralizableCAEXObject fieldVal = ((GeneralizableCAEXObject) field.get(caexObject));
-
-                                if (fieldVal != null) {
-                                    GenericCAEXObject obj = fieldVal.generalize();
-                                    obj.setElementName(elementName);
-                                    children.put(xmlElementAnnotation.name(), obj);
-                                }
-                            } catch (IllegalAccessException e) {
-                                throw new RuntimeException(e);
-                            }
-                            field.setAccessible(false);
-                        }
-                    } else {
-                        // It's a simple object
-                        if (field.trySetAccessible()) {
-                            try {
-                                Object fieldVal = field.get(caexObject);
-                                if (fieldVal != null || xmlElementAnnotation.required()) {
-                                    children.put(xmlElementAnnotation.name(), field.get(caexObject));
-                                }
-                            } catch (IllegalAccessException e) {
-                                throw new RuntimeException(e);
-                            }
-                            field.setAccessible(false);
-                        }
-                    }
-                }
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        Generalizer<Object> generalizer = (Generalizer<Object>) (Generalizer<?>) Generalizer.of(caexObject.getClass());
+        generalizer.generalize(caexObject, collector);
 
-        return new GenericCAEXObject(caexObject, attributes, children);
+        return new GenericCAEXObject(caexObject, null, caexObject.getClass(), collector.attributes, collector.children, mode == Mode.LAZY, model);
     }
 
     /**
-     * Checks if given object is a GeneralizableCAEXObject.
+     * Checks if given class is a GeneralizableCAEXObject. It's called only while creating plans of model classes.
      *
      * @param clazz Object to test.
      * @return True if the specified object implements the GeneralizableCAEXObject interface.
      */
-    private static boolean isGeneralizable(Class<?> clazz) {
+    static boolean isGeneralizable(Class<?> clazz) {
 
         boolean res = false;
         Class<?> c = (Class<?>) clazz.getGenericSuperclass();
@@ -263,12 +713,192 @@ public class GenericCAEXObject {
         return res;
     }
 
+    /**
+     * Unmodifiable map view of attributes or child groups, keyed by the names of the shape.
+     */
+    private abstract class ArrayMap extends AbstractMap<String, Object> {
+
+        private final int[] keys;
+
+        ArrayMap(int[] keys) {
+            this.keys = keys;
+        }
+
+        abstract int indexOf(Object key);
+
+        abstract Object valueAt(int idx);
+
+        @Override
+        public Object get(Object key) {
+            int idx = indexOf(key);
+
+            return idx < 0 ? null : valueAt(idx);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int idx = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return idx < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (idx >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+
+                            Entry<String, Object> res = new SimpleImmutableEntry<>(shape.symbols.name(keys[idx]), valueAt(idx));
+                            idx++;
+
+                            return res;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * Generalization mode.
+     */
+    private enum Mode {
+        EAGER, LAZY, PARALLEL
+    }
+
+    /**
+     * Task generalizing a range of a list of child objects.
+     */
+    private static final class GeneralizeRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String elementName;
+        private final List<? extends GeneralizableCAEXObject> sources;
+        private final GenericCAEXObject[] results;
+        private final int from;
+        private final int to;
+
+        GeneralizeRange(String elementName, List<? extends GeneralizableCAEXObject> sources, GenericCAEXObject[] results, int from, int to) {
+            this.elementName = elementName;
+            this.sources = sources;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = generalize(sources.get(i), Mode.PARALLEL, null);
+                    results[i].setElementName(elementName);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+
+                invokeAll(new GeneralizeRange(elementName, sources, results, from, mid),
+                        new GeneralizeRange(elementName, sources, results, mid, to));
+            }
+        }
+    }
+
+    /**
+     * Sink collecting attributes and children of an object being generalized.
+     * In lazy mode generalizable children are collected as they are, without generalizing them.
+     */
+    private static class Collector implements GeneralizationSink {
+
+        // Add attribute fields to the attributes map
+        // and add other fields to children if they are generalizable
+        final Map<String, Object> attributes = new HashMap<>();
+        final Map<String, Object> children = new HashMap<>();
+        private final Mode mode;
+
+        Collector(Mode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public void attribute(String name, Object value, boolean required) {
+            if (value != null || required) {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void children(String elementName, List<? extends GeneralizableCAEXObject> values) {
+            // That's a list
+            if (values != null && mode == Mode.LAZY) {
+                children.put(elementName, values);
+            } else if (values != null && mode == Mode.PARALLEL) {
+                GenericCAEXObject[] childArray = values.isEmpty() ? NO_CHILDREN : new GenericCAEXObject[values.size()];
+
+                // Items are generalized into their own slots, so the order is kept
+                new GeneralizeRange(elementName, values, childArray, 0, childArray.length).invoke();
+
+                children.put(elementName, childArray);
+            } else if (values != null) {
+                List<GenericCAEXObject> childList = new ArrayList<>(values.size());
+
+                for (GeneralizableCAEXObject listItem : values) {
+                    GenericCAEXObject obj = generalize(listItem, Mode.EAGER, null);
+                    obj.setElementName(elementName);
+                    childList.add(obj);
+                }
+
+                children.put(elementName, childList);
+            }
+        }
+
+        @Override
+        public void child(String elementName, GeneralizableCAEXObject value) {
+            // It's a single generalizable object
+            if (value != null && mode == Mode.LAZY) {
+                children.put(elementName, value);
+            } else if (value != null) {
+                GenericCAEXObject obj = generalize(value, mode, null);
+                obj.setElementName(elementName);
+                children.put(elementName, obj);
+            }
+        }
+
+        @Override
+        public void simple(String elementName, Object value, boolean required) {
+            // It's a simple object
+            if (value != null || required) {
+                children.put(elementName, value);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "GenericCAEXObject{" +
                 "elementName='" + elementName + '\'' +
-                ", attributes=" + attributes.keySet().stream().map(
-                        key -> "[" + key + "='" + attributes.get(key) + "']").collect(Collectors.joining()) +
+                ", attributes=" + getAttributes().entrySet().stream().map(
+                        attr -> "[" + attr.getKey() + "='" + attr.getValue() + "']").collect(Collectors.joining()) +
                 '}';
     }
 }
@@ -0,0 +1,230 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.DatatypeConverter;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.Unmarshaller;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder of generic CAEX object trees straight from StAX events.
+ * <p>
+ * The tree has the same shape as the one created by {@link GenericCAEXObject#from(GeneralizableCAEXObject)}
+ * from the unmarshalled document, but neither typed CAEX objects nor reflective field access are involved.
+ * Only simple child elements of non-text types (e.g. Description) are unmarshalled, one by one.
+ * </p>
+ */
+final class GenericObjectBuilder {
+
+    private final CAEXReader.SchemaBinding binding;
+    private final XMLStreamReader reader;
+    private final SourceLink sourceLink;
+    private Unmarshaller unmarshaller;
+
+    // Set after unmarshalling an element, as the reader is then already positioned on the following event
+    private boolean currentEventPending = false;
+
+    GenericObjectBuilder(CAEXReader.SchemaBinding binding, XMLStreamReader reader, SourceLink sourceLink) {
+        this.binding = binding;
+        this.reader = reader;
+        this.sourceLink = sourceLink;
+    }
+
+    /**
+     * Builds the generic tree of the document.
+     *
+     * @return Root object of the tree.
+     * @throws JAXBException if the document can't be read.
+     */
+    GenericCAEXObject build() throws JAXBException {
+        try {
+            GenericCAEXObject res = buildElement(binding.rootClass, null);
+
+            if (sourceLink != null) {
+                sourceLink.bind(res);
+            }
+
+            if (unmarshaller != null) {
+                binding.release(unmarshaller);
+            }
+
+            return res;
+        } catch (XMLStreamException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    /**
+     * Builds the generic object of the current element.
+     *
+     * @param type Model class of the element.
+     * @param elementName Name of the element (null for the root).
+     * @return Generic object of the element. The reader is left on the END_ELEMENT event of the element.
+     */
+    private GenericCAEXObject buildElement(Class<?> type, String elementName) throws XMLStreamException, JAXBException {
+        ModelPlan plan = ModelPlan.of(type);
+        Map<String, Object> attributes = new HashMap<>();
+        Map<String, Object> children = new HashMap<>();
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String ns = reader.getAttributeNamespace(i);
+            ModelPlan.AttributePlan attribute = ns == null || ns.isEmpty() ? plan.attributes.get(reader.getAttributeLocalName(i)) : null;
+
+            if (attribute != null) {
+                Object value = convert(attribute, reader.getAttributeValue(i));
+
+                if (value != null) {
+                    attributes.put(attribute.name, value);
+                }
+            }
+        }
+
+        while (true) {
+            int event;
+
+            if (currentEventPending) {
+                event = reader.getEventType();
+                currentEventPending = false;
+            } else {
+                event = reader.next();
+            }
+
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            ModelPlan.ElementPlan element = plan.elements.get(reader.getLocalName());
+
+            if (element == null || element.kind == ModelPlan.Kind.IGNORED) {
+                skipElement();
+                continue;
+            }
+
+            switch (element.kind) {
+                case LIST:
+                    GenericCAEXObject item = buildElement(element.type, element.name);
+
+                    @SuppressWarnings("unchecked")
+                    List<GenericCAEXObject> list = (List<GenericCAEXObject>) children.computeIfAbsent(element.name, k -> new ArrayList<>());
+                    list.add(item);
+                    break;
+
+                case SINGLE:
+                    children.put(element.name, buildElement(element.type, element.name));
+                    break;
+
+                default:
+                    Object value = readSimpleElement(element.type);
+
+                    if (value != null) {
+                        children.put(element.name, value);
+                    }
+            }
+        }
+
+        addDefaults(plan, attributes, children);
+
+        return GenericCAEXObject.create(elementName, sourceLink, type, attributes, children);
+    }
+
+    /**
+     * Adds default values of the attributes and child elements missing from a document, as JAXB does.
+     *
+     * @param plan Plan of the model class.
+     * @param attributes Map of attributes.
+     * @param children Map of child objects.
+     */
+    static void addDefaults(ModelPlan plan, Map<String, Object> attributes, Map<String, Object> children) {
+        for (ModelPlan.AttributePlan attribute : plan.attributes.values()) {
+            if (attribute.defaultValue != null && !attributes.containsKey(attribute.name)) {
+                attributes.put(attribute.name, attribute.defaultValue);
+            }
+        }
+
+        for (ModelPlan.ElementPlan element : plan.elements.values()) {
+            if (element.defaultValue != null && !children.containsKey(element.name)) {
+                // Only initialized lists have default values in the model, JAXB fills them in place
+                children.put(element.name, element.kind == ModelPlan.Kind.LIST ? List.of() : element.defaultValue);
+            }
+        }
+    }
+
+    /**
+     * Reads value of a simple child element.
+     *
+     * @param type Type of the element.
+     * @return Value of the element.
+     */
+    private Object readSimpleElement(Class<?> type) throws XMLStreamException, JAXBException {
+        if (type == String.class) {
+            return reader.getElementText();
+        }
+
+        if (unmarshaller == null) {
+            unmarshaller = binding.acquire(false);
+        }
+
+        Object res = unmarshaller.unmarshal(reader, type).getValue();
+
+        // The reader is now positioned on the event following the END_ELEMENT of the unmarshalled element
+        currentEventPending = true;
+
+        return res;
+    }
+
+    /**
+     * Skips the current element with its whole subtree.
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+
+        while (depth > 0) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Converts an attribute value to the type of its model field, as JAXB does.
+     *
+     * @param attribute Plan of the attribute.
+     * @param text Attribute value.
+     * @return Converted value or null if the value can't be converted.
+     */
+    static Object convert(ModelPlan.AttributePlan attribute, String text) {
+        if (attribute.type == String.class) {
+            return text;
+        }
+
+        if (attribute.enumValues != null) {
+            return attribute.enumValues.get(text.trim());
+        }
+
+        try {
+            if (attribute.type == Date.class) {
+                return DatatypeConverter.parseDateTime(text.trim()).getTime();
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        return text;
+    }
+}
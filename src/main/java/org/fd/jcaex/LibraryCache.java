@@ -0,0 +1,257 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.JAXBException;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Size-bounded cache of CAEX library files.
+ * <p>
+ * Libraries are keyed by the canonical path and the last modification time of their file, so a library
+ * is parsed only once as long as its file doesn't change, no matter how many project files reference it
+ * and through which relative path. When the cache is full, the least recently used library is evicted.
+ * </p>
+ * <p>
+ * Libraries can also be looked up by canonical path only (see {@link #getIfCached(Path)}), without touching the file
+ * system, e.g. by resolvers which check their files for modifications on request only.
+ * </p>
+ * <p>
+ * The cache is thread-safe. Concurrent requests of the same library wait for a single parse.
+ * </p>
+ */
+public class LibraryCache {
+
+    /**
+     * Default maximum number of libraries held by the shared cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    private static volatile LibraryCache sharedCache;
+
+    private final int maxSize;
+    private final CAEXReader reader;
+    private final Map<Key, FutureTask<CAEXLibrary>> libraries;
+
+    // Key of the latest version of each cached file
+    private final Map<Path, Key> latestKeys = new HashMap<>();
+
+    /**
+     * Creates a cache using the shared {@link CAEXReader}.
+     *
+     * @param maxSize Maximum number of libraries held by the cache.
+     */
+    public LibraryCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize Maximum number of libraries held by the cache.
+     * @param reader Reader used for parsing library files (null means the shared reader).
+     */
+    public LibraryCache(int maxSize, CAEXReader reader) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.reader = reader;
+        this.libraries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FutureTask<CAEXLibrary>> eldest) {
+                if (size() > LibraryCache.this.maxSize) {
+                    latestKeys.remove(eldest.getKey().path, eldest.getKey());
+
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache shared by all resolvers which don't specify their own one.
+     *
+     * @return Shared library cache.
+     */
+    public static LibraryCache getShared() {
+        LibraryCache res = sharedCache;
+
+        if (res == null) {
+            synchronized (LibraryCache.class) {
+                res = sharedCache;
+
+                if (res == null) {
+                    res = new LibraryCache(DEFAULT_MAX_SIZE);
+                    sharedCache = res;
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets a library. The library file is parsed if it isn't cached yet or if it has been modified since it was cached.
+     *
+     * @param path Path of the library file.
+     * @return Loaded library.
+     * @throws IOException if the file can't be read.
+     * @throws CAEXFileParseException if the file isn't a CAEX file of a supported schema version.
+     * @throws JAXBException if the file doesn't conform to its CAEX schema.
+     * @throws SAXException if the shared reader can't be created.
+     */
+    public CAEXLibrary get(Path path) throws IOException, CAEXFileParseException, JAXBException, SAXException {
+        Path canonicalPath = path.toRealPath();
+        Key key = new Key(canonicalPath, Files.getLastModifiedTime(canonicalPath).toMillis());
+        CAEXReader libraryReader = reader != null ? reader : CAEXReader.getDefault();
+
+        FutureTask<CAEXLibrary> task = new FutureTask<>(() -> new CAEXLibrary(canonicalPath, libraryReader.read(canonicalPath)));
+        FutureTask<CAEXLibrary> existing;
+
+        synchronized (libraries) {
+            existing = libraries.putIfAbsent(key, task);
+
+            if (existing == null) {
+                // Previous versions of a modified file are not needed anymore
+                libraries.keySet().removeIf(k -> k.path.equals(canonicalPath) && k.lastModified != key.lastModified);
+                latestKeys.put(canonicalPath, key);
+            }
+        }
+
+        if (existing == null) {
+            task.run();
+        } else {
+            task = existing;
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Failed libraries aren't cached, a later call tries again
+            synchronized (libraries) {
+                libraries.remove(key, task);
+                latestKeys.remove(canonicalPath, key);
+            }
+
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof CAEXFileParseException) {
+                throw (CAEXFileParseException) cause;
+            } else if (cause instanceof JAXBException) {
+                throw (JAXBException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for library '" + canonicalPath + "'", e);
+        }
+    }
+
+    /**
+     * Gets a cached library without checking its file. The latest cached version is returned even if the file
+     * has been modified since, so callers decide when to check files (see {@link #get(Path)}).
+     *
+     * @param canonicalPath Canonical path of the library file (see {@link Path#toRealPath(java.nio.file.LinkOption...)}).
+     * @return Cached library or null if the file isn't cached or it's still being parsed or couldn't be parsed.
+     */
+    public CAEXLibrary getIfCached(Path canonicalPath) {
+        FutureTask<CAEXLibrary> task;
+
+        synchronized (libraries) {
+            Key key = latestKeys.get(canonicalPath);
+
+            // Counts as an access for the eviction order
+            task = key != null ? libraries.get(key) : null;
+        }
+
+        if (task == null || !task.isDone()) {
+            return null;
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException | InterruptedException e) {
+            // Failed and interrupted loads are handled by get()
+            return null;
+        }
+    }
+
+    /**
+     * Gets the number of cached libraries.
+     *
+     * @return Number of libraries.
+     */
+    public int size() {
+        synchronized (libraries) {
+            return libraries.size();
+        }
+    }
+
+    /**
+     * Removes all libraries from the cache.
+     */
+    public void clear() {
+        synchronized (libraries) {
+            libraries.clear();
+            latestKeys.clear();
+        }
+    }
+
+    /**
+     * Cache key: canonical path and last modification time of a library file.
+     */
+    private static final class Key {
+
+        final Path path;
+        final long lastModified;
+
+        Key(Path path, long lastModified) {
+            this.path = path;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+
+            return lastModified == key.lastModified && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + Long.hashCode(lastModified);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LibraryCache{" +
+                "maxSize=" + maxSize +
+                ", size=" + size() +
+                '}';
+    }
+}
@@ -0,0 +1,351 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generalization plan of a CAEX model class.
+ * <p>
+ * It describes how the XML attributes and child elements of a model class map to the attributes and children
+ * of a {@link GenericCAEXObject}, following the same rules as {@link GenericCAEXObject#from(GeneralizableCAEXObject)}.
+ * Plans are created once per class, together with method handles reading the annotated fields.
+ * </p>
+ */
+final class ModelPlan {
+
+    /**
+     * Kind of an annotated field.
+     */
+    enum Kind {
+        /**
+         * XML attribute.
+         */
+        ATTRIBUTE,
+
+        /**
+         * List of generalizable objects.
+         */
+        LIST,
+
+        /**
+         * Single generalizable object.
+         */
+        SINGLE,
+
+        /**
+         * Simple value (text or non-generalizable object).
+         */
+        SIMPLE,
+
+        /**
+         * Element which doesn't appear in the generic object (list of non-generalizable objects).
+         */
+        IGNORED
+    }
+
+    /**
+     * Plan of an annotated field of a model class.
+     */
+    abstract static class MemberPlan {
+
+        final String name;
+        final Kind kind;
+        final boolean required;
+        final Object defaultValue;
+        private final MethodHandle getter;
+
+        MemberPlan(String name, Kind kind, boolean required, Field field, Object defaultValue) {
+            this.name = name;
+            this.kind = kind;
+            this.required = required;
+            this.defaultValue = defaultValue;
+            this.getter = getterOf(field);
+        }
+
+        /**
+         * Gets value of the field of an object.
+         *
+         * @param obj Object of the model class (or a subclass).
+         * @return Value of the field.
+         */
+        Object get(Object obj) {
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Plan of an XML attribute.
+     */
+    static final class AttributePlan extends MemberPlan {
+
+        final Class<?> type;
+        final Map<String, Object> enumValues;
+
+        AttributePlan(String name, boolean required, Field field, Object defaultValue) {
+            super(name, Kind.ATTRIBUTE, required, field, defaultValue);
+            this.type = field.getType();
+            this.enumValues = type.isEnum() ? enumValues(type) : null;
+        }
+    }
+
+    /**
+     * Plan of a child element.
+     */
+    static final class ElementPlan extends MemberPlan {
+
+        final Class<?> type;
+
+        ElementPlan(String name, Kind kind, boolean required, Class<?> type, Field field, Object defaultValue) {
+            super(name, kind, required, field, defaultValue);
+            this.type = type;
+        }
+    }
+
+    private static final ClassValue<ModelPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected ModelPlan computeValue(Class<?> type) {
+            return new ModelPlan(type);
+        }
+    };
+
+    final Class<?> type;
+    final List<MemberPlan> members;
+    final Map<String, AttributePlan> attributes;
+    final Map<String, ElementPlan> elements;
+
+    // Element names in the order of the CAEX schema: elements of superclasses first
+    final List<String> elementOrder;
+
+    private ModelPlan(Class<?> type) {
+        this.type = type;
+
+        Object defaults = newInstance(type);
+        List<MemberPlan> memberList = new ArrayList<>();
+        Map<String, AttributePlan> attributeMap = new LinkedHashMap<>();
+        Map<String, ElementPlan> elementMap = new LinkedHashMap<>();
+
+        // Fields of subclasses first, like in GenericCAEXObject.from(), so that later fields override earlier ones
+        for (Field field : fieldsOf(type)) {
+            XmlAttribute xmlAttrAnnotation = field.getAnnotation(XmlAttribute.class);
+            XmlElement xmlElementAnnotation = field.getAnnotation(XmlElement.class);
+
+            if ((xmlAttrAnnotation != null || xmlElementAnnotation != null) && !field.trySetAccessible()) {
+                continue;
+            }
+
+            if (xmlAttrAnnotation != null) {
+                AttributePlan attribute = new AttributePlan(xmlAttrAnnotation.name(), xmlAttrAnnotation.required(), field, valueOf(field, defaults));
+
+                memberList.add(attribute);
+                attributeMap.put(attribute.name, attribute);
+            } else if (xmlElementAnnotation != null) {
+                String elementName = xmlElementAnnotation.name();
+                Kind kind;
+                Class<?> elementType;
+
+                if (field.getGenericType() instanceof ParameterizedType) {
+                    ParameterizedType fieldType = (ParameterizedType) field.getGenericType();
+                    Object typeArg = fieldType.getActualTypeArguments()[0];
+
+                    elementType = typeArg instanceof Class ? (Class<?>) typeArg : Object.class;
+                    kind = fieldType.getRawType().equals(List.class) && GenericCAEXObject.isGeneralizable(elementType) ? Kind.LIST : Kind.IGNORED;
+                } else {
+                    elementType = field.getType();
+                    kind = GenericCAEXObject.isGeneralizable(elementType) ? Kind.SINGLE : Kind.SIMPLE;
+                }
+
+                ElementPlan element = new ElementPlan(elementName, kind, xmlElementAnnotation.required(), elementType, field, valueOf(field, defaults));
+
+                memberList.add(element);
+                elementMap.put(elementName, element);
+            }
+        }
+
+        this.members = List.copyOf(memberList);
+        this.attributes = Map.copyOf(attributeMap);
+        this.elements = Map.copyOf(elementMap);
+
+        this.elementOrder = List.copyOf(elementOrderOf(type, elementMap.keySet()));
+    }
+
+    /**
+     * Orders element names of child groups as they appear in documents.
+     *
+     * @param names Element names.
+     * @return Element names in document order. Names unknown to the plan come last.
+     */
+    List<String> inDocumentOrder(Collection<String> names) {
+        List<String> res = new ArrayList<>(names.size());
+
+        for (String name : elementOrder) {
+            if (names.contains(name)) {
+                res.add(name);
+            }
+        }
+
+        if (res.size() < names.size()) {
+            for (String name : names) {
+                if (!res.contains(name)) {
+                    res.add(name);
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets plan of a model class.
+     *
+     * @param type Model class.
+     * @return Plan of the class.
+     */
+    static ModelPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Gets all fields of a class including inherited ones, fields of subclasses first.
+     *
+     * @param type Class.
+     * @return List of fields.
+     */
+    static List<Field> fieldsOf(Class<?> type) {
+        List<Field> res = new ArrayList<>(Arrays.asList(type.getDeclaredFields()));
+        Class<?> superClass = type.getSuperclass();
+
+        while (superClass != null && superClass != Object.class) {
+            res.addAll(Arrays.asList(superClass.getDeclaredFields()));
+            superClass = superClass.getSuperclass();
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets element names of a class in the order of the CAEX schema, which is the declaration order of the fields,
+     * elements of superclasses first.
+     *
+     * @param type Model class.
+     * @param names Element names of the plan.
+     * @return Element names in schema order.
+     */
+    private static List<String> elementOrderOf(Class<?> type, Collection<String> names) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+
+        List<String> res = new ArrayList<>();
+
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                XmlElement xmlElementAnnotation = field.getAnnotation(XmlElement.class);
+
+                if (xmlElementAnnotation != null && names.contains(xmlElementAnnotation.name()) && !res.contains(xmlElementAnnotation.name())) {
+                    res.add(xmlElementAnnotation.name());
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets value of a field of an object.
+     *
+     * @param field Field.
+     * @param obj Object (may be null).
+     * @return Value of the field or null.
+     */
+    static Object valueOf(Field field, Object obj) {
+        if (obj == null || !field.trySetAccessible()) {
+            return null;
+        }
+
+        try {
+            return field.get(obj);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a getter of a field, adapted to the (Object)Object type.
+     *
+     * @param field Accessible field.
+     * @return Getter method handle.
+     */
+    private static MethodHandle getterOf(Field field) {
+        try {
+            return MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                    .unreflectGetter(field)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates an instance of a model class with its default field values.
+     *
+     * @param type Model class.
+     * @return New instance or null if the class can't be instantiated.
+     */
+    static Object newInstance(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+
+            return constructor.trySetAccessible() ? constructor.newInstance() : null;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Maps XML values of an enum to its constants.
+     *
+     * @param type Enum class.
+     * @return Map of XML values and constants.
+     */
+    private static Map<String, Object> enumValues(Class<?> type) {
+        Map<String, Object> res = new HashMap<>();
+
+        for (Object constant : type.getEnumConstants()) {
+            String name = ((Enum<?>) constant).name();
+            XmlEnumValue xmlEnumValue;
+
+            try {
+                xmlEnumValue = type.getField(name).getAnnotation(XmlEnumValue.class);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+
+            res.put(xmlEnumValue != null ? xmlEnumValue.value() : name, constant);
+        }
+
+        return Map.copyOf(res);
+    }
+}
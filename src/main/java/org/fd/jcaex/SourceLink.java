@@ -0,0 +1,108 @@
+package org.fd.jcaex;
+
+import jakarta.xml.bind.JAXBException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Link between a generic object tree built straight from a CAEX file and the typed CAEX objects of the same file.
+ * <p>
+ * Typed objects are not created while the generic tree is built. When the source object of any node is requested
+ * for the first time, the file is unmarshalled once and every node of the tree gets its source object.
+ * </p>
+ */
+final class SourceLink {
+
+    private final CAEXReader reader;
+    private final Path path;
+    private GenericCAEXObject root;
+    private boolean linked = false;
+
+    SourceLink(CAEXReader reader, Path path) {
+        this.reader = reader;
+        this.path = path;
+    }
+
+    /**
+     * Sets root of the generic object tree.
+     *
+     * @param root Root object.
+     */
+    void bind(GenericCAEXObject root) {
+        this.root = root;
+    }
+
+    /**
+     * Unmarshals the file and sets the source object of every node of the tree, if it isn't done yet.
+     *
+     * @throws UncheckedIOException if the file can't be read.
+     * @throws IllegalStateException if the file can't be unmarshalled or it has changed since the tree was built.
+     */
+    synchronized void link() {
+        if (linked) {
+            return;
+        }
+
+        try {
+            pair(root, reader.read(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read source objects from '" + path + "'", e);
+        } catch (CAEXFileParseException | JAXBException e) {
+            throw new IllegalStateException("Unable to read source objects from '" + path + "'", e);
+        }
+
+        linked = true;
+    }
+
+    /**
+     * Walks a generic tree and a typed tree side by side and sets source objects of the generic nodes.
+     *
+     * @param genericRoot Root of the generic tree.
+     * @param sourceRoot Root of the typed tree.
+     */
+    private void pair(GenericCAEXObject genericRoot, Object sourceRoot) {
+        Deque<Object[]> stack = new ArrayDeque<>();
+        stack.push(new Object[] { genericRoot, sourceRoot });
+
+        while (!stack.isEmpty()) {
+            Object[] pair = stack.pop();
+            GenericCAEXObject generic = (GenericCAEXObject) pair[0];
+            Object source = pair[1];
+
+            generic.setSourceCAEXObject(source);
+
+            for (ModelPlan.ElementPlan element : ModelPlan.of(source.getClass()).elements.values()) {
+                Object sourceChild = element.get(source);
+                Object genericChild = generic.getChildren(element.name);
+
+                if (element.kind == ModelPlan.Kind.LIST && sourceChild != null) {
+                    List<?> sourceList = (List<?>) sourceChild;
+                    List<?> genericList = genericChild instanceof List ? (List<?>) genericChild : List.of();
+
+                    if (sourceList.size() != genericList.size()) {
+                        throw changed();
+                    }
+
+                    for (int i = 0; i < sourceList.size(); i++) {
+                        stack.push(new Object[] { genericList.get(i), sourceList.get(i) });
+                    }
+                } else if (element.kind == ModelPlan.Kind.SINGLE && sourceChild != null) {
+                    if (!(genericChild instanceof GenericCAEXObject)) {
+                        throw changed();
+                    }
+
+                    stack.push(new Object[] { genericChild, sourceChild });
+                }
+            }
+        }
+    }
+
+    private IllegalStateException changed() {
+        return new IllegalStateException("Source file '" + path + "' has changed since it was read");
+    }
+}
@@ -0,0 +1,198 @@
+package org.fd.jcaex;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * Symbol table of the element and attribute names of a CAEX model.
+ * <p>
+ * Names are interned as small ints. Generic objects don't store names themselves, they refer to a shared
+ * {@link Shape} holding the symbols of their attributes (sorted) and child groups (in document order). Objects of the same class
+ * usually have the same attributes and children, so a few shapes serve all objects of a document.
+ * </p>
+ */
+final class SymbolTable {
+
+    /**
+     * Attribute and child element names of generic objects.
+     */
+    static final class Shape {
+
+        final SymbolTable symbols;
+        final int[] attributes;
+        final int[] children;
+        private final int hash;
+
+        // Indexes of the attributes ordered by name, built on first use
+        private volatile int[] attributeNameOrder;
+
+        private Shape(SymbolTable symbols, int[] attributes, int[] children) {
+            this.symbols = symbols;
+            this.attributes = attributes;
+            this.children = children;
+            this.hash = 31 * Arrays.hashCode(attributes) + Arrays.hashCode(children);
+        }
+
+        /**
+         * Gets indexes of the attributes ordered by name.
+         * Attributes are sorted by symbol, which depends on the order names were first seen by the JVM,
+         * so anything which must not depend on the documents read before (e.g. structural hashes) iterates in this order.
+         *
+         * @return Attribute indexes in name order.
+         */
+        int[] attributeNameOrder() {
+            int[] res = attributeNameOrder;
+
+            if (res == null) {
+                res = IntStream.range(0, attributes.length)
+                        .boxed()
+                        .sorted(Comparator.comparing(i -> symbols.name(attributes[i])))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                attributeNameOrder = res;
+            }
+
+            return res;
+        }
+
+        /**
+         * Gets index of an attribute.
+         *
+         * @param name Name of the attribute.
+         * @return Index of the attribute or -1 if objects of this shape don't have it.
+         */
+        int indexOfAttribute(Object name) {
+            return indexOf(attributes, name);
+        }
+
+        /**
+         * Gets index of a child group.
+         *
+         * @param name Element name of the group.
+         * @return Index of the group or -1 if objects of this shape don't have it.
+         */
+        int indexOfChild(Object name) {
+            return indexOf(children, name);
+        }
+
+        private int indexOf(int[] ids, Object name) {
+            // Objects have only a few attributes and child groups, and names are mostly the same String instances
+            for (int i = 0; i < ids.length; i++) {
+                if (symbols.name(ids[i]).equals(name)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Shape)) {
+                return false;
+            }
+
+            Shape shape = (Shape) o;
+
+            return symbols == shape.symbols && Arrays.equals(attributes, shape.attributes) && Arrays.equals(children, shape.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final ConcurrentMap<String, SymbolTable> MODELS = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Shape, Shape> shapes = new ConcurrentHashMap<>();
+
+    // Copied on write, there are only a few hundred names in a model
+    private volatile String[] names = new String[0];
+
+    private SymbolTable() { }
+
+    /**
+     * Gets the symbol table of the model a class belongs to. Classes of the same package share a table.
+     *
+     * @param type Model class.
+     * @return Symbol table of the model.
+     */
+    static SymbolTable forModel(Class<?> type) {
+        return MODELS.computeIfAbsent(type.getPackageName(), k -> new SymbolTable());
+    }
+
+    /**
+     * Gets symbol of a name, adding it to the table if needed.
+     *
+     * @param name Name.
+     * @return Symbol of the name.
+     */
+    int symbol(String name) {
+        Integer res = ids.get(name);
+
+        if (res == null) {
+            synchronized (this) {
+                res = ids.get(name);
+
+                if (res == null) {
+                    String[] newNames = Arrays.copyOf(names, names.length + 1);
+                    newNames[names.length] = name;
+
+                    res = names.length;
+                    names = newNames;
+                    ids.put(name, res);
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets name of a symbol.
+     *
+     * @param symbol Symbol.
+     * @return Name of the symbol.
+     */
+    String name(int symbol) {
+        return names[symbol];
+    }
+
+    /**
+     * Gets the shared shape of objects having the given attributes and children.
+     *
+     * @param attributeNames Names of attributes.
+     * @param childNames Element names of child groups in document order.
+     * @return Shape with sorted attribute symbols and child group symbols in the given order.
+     */
+    Shape shape(Collection<String> attributeNames, Collection<String> childNames) {
+        int[] attributes = symbols(attributeNames);
+        Arrays.sort(attributes);
+
+        Shape res = new Shape(this, attributes, symbols(childNames));
+        Shape existing = shapes.putIfAbsent(res, res);
+
+        return existing != null ? existing : res;
+    }
+
+    private int[] symbols(Collection<String> names) {
+        int[] res = new int[names.size()];
+        int i = 0;
+
+        for (String name : names) {
+            res[i++] = symbol(name);
+        }
+
+        return res;
+    }
+}
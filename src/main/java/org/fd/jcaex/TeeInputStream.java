@@ -0,0 +1,144 @@
+package org.fd.jcaex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream copying every byte read from its source to a branch stream.
+ * <p>
+ * Bytes read before the branch is attached are kept in memory and handed over when attaching it,
+ * so the branch always receives the whole source. The branch is flushed after every write, so a reader waiting on it
+ * (e.g. of a piped stream) is woken up at once. Once the branch fails (e.g. its reader has stopped), copying is
+ * given up and the main stream keeps working, the failure is kept for the owner (see {@link #getBranchFailure()}).
+ * </p>
+ */
+class TeeInputStream extends FilterInputStream {
+
+    private ByteArrayOutputStream head = new ByteArrayOutputStream();
+    private OutputStream branch;
+    private IOException branchFailure;
+
+    TeeInputStream(InputStream source) {
+        super(source);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int res = super.read();
+
+        if (res >= 0) {
+            copy(new byte[] { (byte) res }, 0, 1);
+        }
+
+        return res;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int res = super.read(b, off, len);
+
+        if (res > 0) {
+            copy(b, off, res);
+        }
+
+        return res;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes must reach the branch too
+        byte[] buf = new byte[(int) Math.min(n, 8192)];
+        long res = 0;
+
+        while (res < n) {
+            int count = read(buf, 0, (int) Math.min(buf.length, n - res));
+
+            if (count < 0) {
+                break;
+            }
+
+            res += count;
+        }
+
+        return res;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Attaches the branch stream.
+     *
+     * @param branch Stream receiving bytes read from now on.
+     * @return Stream of the bytes which were read before attaching the branch.
+     */
+    InputStream attachBranch(OutputStream branch) {
+        InputStream res = new ByteArrayInputStream(head.toByteArray());
+
+        this.head = null;
+        this.branch = branch;
+
+        return res;
+    }
+
+    /**
+     * Gets the failure of the branch.
+     *
+     * @return Exception thrown by the branch or null if it hasn't failed.
+     */
+    IOException getBranchFailure() {
+        return branchFailure;
+    }
+
+    /**
+     * Copies the not yet read rest of the source to the branch, then closes the branch.
+     */
+    void finishBranch() {
+        try {
+            byte[] buf = new byte[8192];
+
+            while (branch != null && read(buf, 0, buf.length) >= 0) {
+                // Only copying is needed
+            }
+        } catch (IOException e) {
+            // The branch receives an incomplete document, which its reader reports
+        }
+
+        closeBranch();
+    }
+
+    /**
+     * Closes the branch without copying the rest of the source.
+     */
+    void closeBranch() {
+        if (branch != null) {
+            try {
+                branch.close();
+            } catch (IOException e) {
+                // Nothing to do, the branch is abandoned anyway
+            }
+
+            branch = null;
+        }
+    }
+
+    private void copy(byte[] b, int off, int len) {
+        if (branch != null) {
+            try {
+                branch.write(b, off, len);
+                branch.flush();
+            } catch (IOException e) {
+                branchFailure = e;
+                branch = null;
+            }
+        } else if (head != null) {
+            head.write(b, off, len);
+        }
+    }
+}
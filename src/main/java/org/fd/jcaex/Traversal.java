@@ -0,0 +1,259 @@
+package org.fd.jcaex;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Iterative traversals of generic object trees.
+ * <p>
+ * Children of an object are visited in document order (see {@link GenericCAEXObject#childAt(int)}).
+ * None of the traversals use recursion.
+ * </p>
+ */
+final class Traversal {
+
+    private Traversal() { }
+
+    /**
+     * Pre-order iterator.
+     */
+    static final class PreOrderIterator implements Iterator<GenericCAEXObject> {
+
+        // Next object is the first one
+        private final Deque<GenericCAEXObject> pending = new ArrayDeque<>();
+
+        PreOrderIterator(GenericCAEXObject root) {
+            pending.add(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public GenericCAEXObject next() {
+            GenericCAEXObject res = pending.pollFirst();
+
+            if (res == null) {
+                throw new NoSuchElementException();
+            }
+
+            pushChildren(res, pending);
+
+            return res;
+        }
+    }
+
+    /**
+     * Post-order iterator.
+     */
+    static final class PostOrderIterator implements Iterator<GenericCAEXObject> {
+
+        /**
+         * An object and the position of its next child.
+         */
+        private static final class Frame {
+
+            final GenericCAEXObject object;
+            int group = 0;
+            int item = 0;
+
+            Frame(GenericCAEXObject object) {
+                this.object = object;
+            }
+
+            GenericCAEXObject nextChild() {
+                while (group < object.childGroupCount()) {
+                    Object val = object.rawChildGroup(group);
+
+                    if (val instanceof GenericCAEXObject[] && item < ((GenericCAEXObject[]) val).length) {
+                        return ((GenericCAEXObject[]) val)[item++];
+                    }
+
+                    group++;
+                    item = 0;
+
+                    if (val instanceof GenericCAEXObject) {
+                        return (GenericCAEXObject) val;
+                    }
+                }
+
+                return null;
+            }
+        }
+
+        private final Deque<Frame> stack = new ArrayDeque<>();
+
+        PostOrderIterator(GenericCAEXObject root) {
+            stack.push(new Frame(root));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public GenericCAEXObject next() {
+            Frame frame = stack.peek();
+
+            if (frame == null) {
+                throw new NoSuchElementException();
+            }
+
+            GenericCAEXObject child = frame.nextChild();
+
+            // Descend to the first leaf not returned yet
+            while (child != null) {
+                frame = new Frame(child);
+                stack.push(frame);
+                child = frame.nextChild();
+            }
+
+            stack.pop();
+
+            return frame.object;
+        }
+    }
+
+    /**
+     * Spliterator of the descendants of an object in pre-order.
+     * <p>
+     * The pending subtrees are kept in order. Splitting hands over the first half of them, or if there is only
+     * one pending subtree, its root object, so that its children can be split further. The size is unknown,
+     * the estimate is halved on each split like for other spliterators of unknown size.
+     * </p>
+     */
+    static final class DescendantSpliterator implements Spliterator<GenericCAEXObject> {
+
+        // Next object is the first one
+        private final Deque<GenericCAEXObject> pending;
+        private long estimatedSize;
+
+        DescendantSpliterator(GenericCAEXObject root) {
+            this(new ArrayDeque<>(), Long.MAX_VALUE);
+            pushChildren(root, pending);
+        }
+
+        private DescendantSpliterator(Deque<GenericCAEXObject> pending, long estimatedSize) {
+            this.pending = pending;
+            this.estimatedSize = estimatedSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super GenericCAEXObject> action) {
+            GenericCAEXObject obj = pending.pollFirst();
+
+            if (obj == null) {
+                return false;
+            }
+
+            pushChildren(obj, pending);
+            action.accept(obj);
+
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super GenericCAEXObject> action) {
+            GenericCAEXObject obj;
+
+            while ((obj = pending.pollFirst()) != null) {
+                pushChildren(obj, pending);
+                action.accept(obj);
+            }
+        }
+
+        @Override
+        public Spliterator<GenericCAEXObject> trySplit() {
+            int size = pending.size();
+
+            if (size == 0) {
+                return null;
+            }
+
+            estimatedSize >>>= 1;
+
+            if (size == 1) {
+                GenericCAEXObject first = pending.pollFirst();
+                pushChildren(first, pending);
+
+                return Spliterators.spliterator(new Object[] { first }, ORDERED | NONNULL);
+            }
+
+            Deque<GenericCAEXObject> prefix = new ArrayDeque<>(size / 2);
+
+            for (int i = 0; i < size / 2; i++) {
+                prefix.add(pending.pollFirst());
+            }
+
+            return new DescendantSpliterator(prefix, estimatedSize);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * Walks a tree in pre-order.
+     *
+     * @param root Root object.
+     * @param visitor Visitor.
+     * @return False if the visitor stopped the walk.
+     */
+    static boolean walk(GenericCAEXObject root, CAEXVisitor visitor) {
+        Deque<GenericCAEXObject> pending = new ArrayDeque<>();
+        pending.add(root);
+
+        GenericCAEXObject obj;
+
+        while ((obj = pending.pollFirst()) != null) {
+            CAEXVisitor.Result result = visitor.visit(obj);
+
+            if (result == CAEXVisitor.Result.STOP) {
+                return false;
+            }
+
+            if (result != CAEXVisitor.Result.SKIP_SUBTREE) {
+                pushChildren(obj, pending);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds children of an object to the front of a deque, keeping their order.
+     *
+     * @param obj Object.
+     * @param deque Deque.
+     */
+    static void pushChildren(GenericCAEXObject obj, Deque<GenericCAEXObject> deque) {
+        for (int i = obj.childGroupCount() - 1; i >= 0; i--) {
+            Object val = obj.rawChildGroup(i);
+
+            if (val instanceof GenericCAEXObject[]) {
+                GenericCAEXObject[] group = (GenericCAEXObject[]) val;
+
+                for (int j = group.length - 1; j >= 0; j--) {
+                    deque.addFirst(group[j]);
+                }
+            } else if (val instanceof GenericCAEXObject) {
+                deque.addFirst((GenericCAEXObject) val);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.fd.jcaex;
+
+/**
+ * CAEX attribute whose Value and DefaultValue can be parsed according to its AttributeDataType.
+ *
+ * @see CAEXReader#withTypedAttributeValues(boolean)
+ */
+public interface TypedAttribute {
+
+    /**
+     * Gets name of the attribute.
+     *
+     * @return Name of the attribute.
+     */
+    String getName();
+
+    /**
+     * Gets data type of the attribute.
+     *
+     * @return Data type in XML notation (e.g. xs:int) or null if it isn't given.
+     */
+    String getAttributeDataType();
+
+    /**
+     * Gets the parsed Value of the attribute.
+     *
+     * @return Parsed value or null if values weren't parsed or the attribute has no value.
+     */
+    AttributeValue getTypedValue();
+
+    /**
+     * Gets the parsed DefaultValue of the attribute.
+     *
+     * @return Parsed default value or null if values weren't parsed or the attribute has no default value.
+     */
+    AttributeValue getTypedDefaultValue();
+
+    /**
+     * Parses Value and DefaultValue of the attribute according to its data type.
+     * Readers with typed attribute values call it for every attribute they read.
+     *
+     * @throws IllegalArgumentException if a value isn't valid for the data type. Neither value is set then.
+     */
+    void parseTypedValues();
+}
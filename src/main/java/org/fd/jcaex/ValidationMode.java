@@ -0,0 +1,25 @@
+package org.fd.jcaex;
+
+/**
+ * Modes of validating CAEX documents against their XML schema while reading.
+ */
+public enum ValidationMode {
+
+    /**
+     * Documents are validated inline by the unmarshaller, reading fails at the first schema violation.
+     */
+    STRICT,
+
+    /**
+     * Documents are validated on a separate thread against the same bytes while unmarshalling proceeds.
+     * Outcome of the validation is joined when unmarshalling is finished, so schema violations are reported
+     * the same way as in {@link #STRICT} mode, just after the whole document has been processed.
+     */
+    PARALLEL,
+
+    /**
+     * Documents are not validated. Use it only for trusted sources, since unmarshalling accepts any content
+     * that can be bound to the CAEX classes.
+     */
+    NONE
+}
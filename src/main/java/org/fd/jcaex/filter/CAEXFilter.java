@@ -1,12 +1,12 @@
 package org.fd.jcaex.filter;
 
+import org.fd.jcaex.CAEXModel;
+import org.fd.jcaex.CAEXNavigable;
 import org.fd.jcaex.GeneralizableCAEXObject;
 import org.fd.jcaex.GenericCAEXObject;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +20,10 @@ public class CAEXFilter {
     GenericCAEXObject origin;
     List<FilterNode> filterNodes;
 
+    // Built on the first deep search if enabled
+    private boolean elementIndexEnabled = false;
+    private ElementIndex elementIndex;
+
     private CAEXFilter(GeneralizableCAEXObject caexObject) {
         this.origin = caexObject.generalize();
     }
@@ -64,6 +68,44 @@ public class CAEXFilter {
         return res;
     }
 
+    /**
+     * Enables an index of the element names of the origin object and its descendants.
+     * The index is built on the first deep search (e.g. {@code all().element("ExternalInterface")}) and kept
+     * for the lifetime of this filter, so searching by element name becomes a lookup instead of a traversal of the tree.
+     * Searches on descendants of the origin are served as well. Criteria with several alternatives are still evaluated
+     * by traversal. Building the index generalizes lazily generalized objects completely.
+     *
+     * @return Object of this filter.
+     * @see #getElementIndexBytes()
+     */
+    public CAEXFilter withElementIndex() {
+        this.elementIndexEnabled = true;
+
+        return this;
+    }
+
+    /**
+     * Gets estimated heap memory used by the element index.
+     *
+     * @return Estimated number of bytes or 0 if the index hasn't been built.
+     */
+    public long getElementIndexBytes() {
+        return elementIndex != null ? elementIndex.estimatedBytes() : 0;
+    }
+
+    /**
+     * Gets the element index of the origin, building it on first call.
+     *
+     * @return Element index or null if it isn't enabled.
+     */
+    ElementIndex getElementIndex() {
+        if (elementIndexEnabled && elementIndex == null) {
+            elementIndex = new ElementIndex(origin);
+        }
+
+        return elementIndex;
+    }
+
     /**
      * Clears all filter nodes from this filter.
      * This method can be used to reuse filter objects, making it unnecessary to generalize the source object
@@ -126,113 +168,137 @@ public class CAEXFilter {
      *                       Multiple criteria could be set using a dot as separator and these are treated as an OR function on each object.
      *                       So the returning list will contain elements which fulfills any criteria of the given criteria list.
      * @param deepSearch     If set to true, children will be tested all the way down the tree, otherwise only the root object will be tested.
+     * @param <T>            Type of the objects, e.g. generic objects or cursors of a columnar model.
      * @return List containing elements which fulfills criteria.
      */
-    public static List<GenericCAEXObject> applyFilter(GenericCAEXObject rootObject, String filterCriteria, boolean deepSearch) {
+    public static <T extends CAEXNavigable<T>> List<T> applyFilter(T rootObject, String filterCriteria, boolean deepSearch) {
+        return applyFilter(rootObject, FilterCriteria.compile(filterCriteria), deepSearch);
+    }
 
-        List<GenericCAEXObject> res = new ArrayList<>();
+    /**
+     * Filter elements using compiled filter criteria.
+     *
+     * @param rootObject Object on which the filter will be applied.
+     * @param filterCriteria Compiled filter criteria (see {@link #applyFilter(CAEXNavigable, String, boolean)}).
+     * @param deepSearch     If set to true, children will be tested all the way down the tree, otherwise only the root object will be tested.
+     * @param <T>            Type of the objects, e.g. generic objects or cursors of a columnar model.
+     * @return List containing elements which fulfills criteria.
+     */
+    public static <T extends CAEXNavigable<T>> List<T> applyFilter(T rootObject, FilterCriteria filterCriteria, boolean deepSearch) {
+        List<T> res = new ArrayList<>();
 
-        String[] criteriaList = filterCriteria.split(",");
+        applyFilter(rootObject, filterCriteria, deepSearch, res);
 
-        Pattern p = Pattern.compile("\\s*(?:((?<elementName>\\w+)\\s*$)|((?<elemName>\\w+)?\\s*(?:\\[\\s*(?<attrName>\\w+)\\s*(?:\\s*(?:='(?<attrVal>.*?)'\\s*)?)?\\])+?))");
+        return res;
+    }
 
-        Arrays.asList(criteriaList).forEach(criteria -> {
-            Matcher m = p.matcher(criteria);
+    /**
+     * Filter elements using compiled filter criteria, adding the results to a list.
+     * Deep searches with a single element name alternative walk the tree once, in pre-order with an explicit stack,
+     * testing each object in place, so only the results are retained. Other criteria are evaluated level by level.
+     *
+     * @param rootObject Object on which the filter will be applied.
+     * @param filterCriteria Compiled filter criteria.
+     * @param deepSearch Whether descendants should be tested too.
+     * @param res List of results.
+     */
+    private static <T extends CAEXNavigable<T>> void applyFilter(T rootObject, FilterCriteria filterCriteria, boolean deepSearch, List<T> res) {
+        if (deepSearch && filterCriteria.alternatives.size() == 1 && filterCriteria.alternatives.get(0).elementName != null) {
+            FilterCriteria.Alternative alternative = filterCriteria.alternatives.get(0);
+            Iterator<T> iter = rootObject.preOrderIterator();
 
-            if (m.matches()) {
+            // Skip the root object
+            iter.next();
+
+            while (iter.hasNext()) {
+                T obj = iter.next();
+
+                if (alternative.elementName.equals(obj.getElementName()) && alternative.testAttributes(obj)) {
+                    res.add(obj.retain());
+                }
+            }
+        } else {
+            res.addAll(applyFilterByLevel(rootObject, filterCriteria, deepSearch));
+        }
+    }
 
-                boolean elementNameFilterUsed = m.group("elementName") != null || m.group("elemName") != null;
-                boolean attributeFilterUsed = m.group("attrName") != null;
+    /**
+     * Filter elements using compiled filter criteria, testing the alternatives on each level of the tree.
+     *
+     * @param rootObject Object on which the filter will be applied.
+     * @param filterCriteria Compiled filter criteria.
+     * @param deepSearch Whether descendants should be tested too.
+     * @return List containing elements which fulfills criteria.
+     */
+    private static <T extends CAEXNavigable<T>> List<T> applyFilterByLevel(T rootObject, FilterCriteria filterCriteria, boolean deepSearch) {
 
-                if (elementNameFilterUsed) {
-                    String elementName = m.group("elementName") != null ? m.group("elementName") : m.group("elemName");
+        List<T> res = new ArrayList<>();
 
-                    Object child = rootObject.getChildren().get(elementName);
+        for (FilterCriteria.Alternative alternative : filterCriteria.alternatives) {
+            String elementName = alternative.elementName;
 
-                    if (child != null) {
-                        if (child instanceof GenericCAEXObject) {
-                            res.add((GenericCAEXObject) child);
-                        }
+            if (elementName != null) {
+                if (deepSearch) {
+                    // Children in document order, each followed by its matching descendants
+                    int childCount = rootObject.childCount();
 
-                        if (child instanceof List) {
-                            ((List<?>) child).forEach(item -> {
-                                if (item instanceof GenericCAEXObject) {
-                                    res.add((GenericCAEXObject) item);
-                                }
+                    for (int i = 0; i < childCount; i++) {
+                        T item = rootObject.childAt(i);
 
-                            });
+                        if (elementName.equals(item.getElementName())) {
+                            res.add(item);
                         }
-                    }
 
-                    if (deepSearch) {
-                        rootObject.getChildren().forEach((key, val) -> {
-                            if (val instanceof GenericCAEXObject) {
-                                res.addAll(applyFilter((GenericCAEXObject) val, filterCriteria, deepSearch));
-                            }
-
-                            if (val instanceof List) {
-                                ((List<?>) val).forEach(item -> {
-                                    if (item instanceof GenericCAEXObject) {
-                                        res.addAll(applyFilter((GenericCAEXObject) item, filterCriteria, deepSearch));
-                                    }
-
-                                });
-                            }
-                        });
+                        res.addAll(applyFilterByLevel(item, filterCriteria, deepSearch));
                     }
                 } else {
-                    rootObject.getChildren().forEach((key, val) -> {
-                        if (val instanceof GenericCAEXObject) {
-                            res.add((GenericCAEXObject) val);
-                        }
-
-                        if (val instanceof List<?>) {
-                            res.addAll((Collection<? extends GenericCAEXObject>) val);
-                        }
-                    });
+                    // Look up the group only, so that lazily generalized objects don't generalize other groups
+                    res.addAll(rootObject.childrenNamed(elementName));
                 }
+            } else {
+                int childCount = rootObject.childCount();
 
-                // Now check attributes
-                if (attributeFilterUsed) {
-                    Iterator<GenericCAEXObject> iter = res.iterator();
-
-                    while (iter.hasNext()) {
-                        GenericCAEXObject obj = iter.next();
-
-                        m.reset();
-
-                        while (m.find()) {
-                            String attrName = m.group("attrName");
-                            String attrVal = m.group("attrVal");
-
-                            boolean fits = obj.getAttributes().containsKey(attrName) && (m.group("attrVal") == null || ((String) obj.getAttribute(attrName)).matches(attrVal));
-
-                            if (!fits) {
-                                iter.remove();
-                                break;
-                            }
-                        }
-                    }
+                for (int i = 0; i < childCount; i++) {
+                    res.add(rootObject.childAt(i));
                 }
             }
-        });
+
+            // Now check attributes (of all results so far)
+            if (alternative.attributeChecks.length > 0) {
+                res.removeIf(obj -> !alternative.testAttributes(obj));
+            }
+        }
 
         return res;
     }
 
     /**
-     * Applies filter on a collection of generic CAEX objects.
+     * Applies filter on a collection of CAEX objects.
      *
      * @param objects        List of objects.
      * @param filterCriteria Filter criteria as string.
      * @param deepSearch     Whether this filter should be applied on direct children (false) or all descendants (true).
+     * @param <T>            Type of the objects, e.g. generic objects or cursors of a columnar model.
      * @return List of objects matching the criteria or empty list if no results.
      */
-    public static List<GenericCAEXObject> applyFilter(List<GenericCAEXObject> objects, String filterCriteria, boolean deepSearch) {
-        List<GenericCAEXObject> res = new ArrayList<>();
+    public static <T extends CAEXNavigable<T>> List<T> applyFilter(List<T> objects, String filterCriteria, boolean deepSearch) {
+        return applyFilter(objects, FilterCriteria.compile(filterCriteria), deepSearch);
+    }
+
+    /**
+     * Applies compiled filter criteria on a collection of CAEX objects.
+     *
+     * @param objects        List of objects.
+     * @param filterCriteria Compiled filter criteria.
+     * @param deepSearch     Whether this filter should be applied on direct children (false) or all descendants (true).
+     * @param <T>            Type of the objects, e.g. generic objects or cursors of a columnar model.
+     * @return List of objects matching the criteria or empty list if no results.
+     */
+    public static <T extends CAEXNavigable<T>> List<T> applyFilter(List<T> objects, FilterCriteria filterCriteria, boolean deepSearch) {
+        List<T> res = new ArrayList<>();
 
         if (objects != null) {
-            objects.forEach(object -> res.addAll(applyFilter(object, filterCriteria, deepSearch)));
+            objects.forEach(object -> applyFilter(object, filterCriteria, deepSearch, res));
         }
 
         return res;
@@ -248,6 +314,23 @@ public class CAEXFilter {
         return new CAEXFilter(caexObject);
     }
 
+    /**
+     * Creates a filter for a given CAEX object, generalizing it lazily if requested.
+     * Lazily generalized objects are generalized only as far as the filter operations touch them.
+     * Objects of a file with a loaded model are taken from the (lazily generalized) model.
+     *
+     * @param caexObject Origin object of filter operations.
+     * @param lazy Whether child objects should be generalized on first access.
+     * @return Newly created CAEXFilter object.
+     * @see GenericCAEXObject#from(GeneralizableCAEXObject, boolean)
+     * @see CAEXModel#load(org.fd.jcaex.CAEXFile)
+     */
+    public static CAEXFilter forObject(GeneralizableCAEXObject caexObject, boolean lazy) {
+        GenericCAEXObject loaded = CAEXModel.findLoaded(caexObject);
+
+        return new CAEXFilter(loaded != null ? loaded : GenericCAEXObject.from(caexObject, lazy));
+    }
+
     /**
      * Creates a filter for a given CAEX object.
      *
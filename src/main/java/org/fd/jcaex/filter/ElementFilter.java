@@ -15,6 +15,9 @@ public class ElementFilter extends AbstractElementFilter {
     String elementName;
     Set<String> attributes = new HashSet<>();
 
+    // Compiled on first execution, reset when attribute filters change
+    private FilterCriteria criteria;
+
     ElementFilter(String elementName) {
         this.elementName = elementName;
     }
@@ -30,6 +33,7 @@ public class ElementFilter extends AbstractElementFilter {
     public ElementFilter withAttr(String... attributes) {
 
         this.attributes.addAll(Arrays.asList(attributes));
+        this.criteria = null;
 
         return this;
     }
@@ -42,17 +46,70 @@ public class ElementFilter extends AbstractElementFilter {
      *
      */
     String getFilterString() {
-        return elementName +
-                attributes.stream().reduce("", (s1, s2) -> s1 + ("[" + s2 + "]"));
+        StringBuilder sb = new StringBuilder(elementName);
+
+        for (String attribute : attributes) {
+            sb.append('[').append(attribute).append(']');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Gets compiled filter criteria of this filter. Criteria are compiled once and reused for every execution.
+     *
+     * @return Compiled filter criteria.
+     */
+    FilterCriteria getCriteria() {
+        if (criteria == null) {
+            criteria = FilterCriteria.compile(getFilterString());
+        }
+
+        return criteria;
+    }
+
+    /**
+     * Gets element index of the filter for deep searches.
+     *
+     * @return Element index or null if this isn't a deep search or the filter doesn't have an index.
+     */
+    private ElementIndex getElementIndex() {
+        CAEXFilter filter = parentFilterNode.getParentFilter();
+
+        return parentFilterNode.isDeep() && filter != null ? filter.getElementIndex() : null;
     }
 
     @Override
     List<GenericCAEXObject> execute(GenericCAEXObject object) {
-        return CAEXFilter.applyFilter(object, getFilterString(), parentFilterNode.isDeep());
+        ElementIndex index = getElementIndex();
+
+        if (index != null) {
+            List<GenericCAEXObject> res = new ArrayList<>();
+
+            if (index.find(object, getCriteria(), res)) {
+                return res;
+            }
+        }
+
+        return CAEXFilter.applyFilter(object, getCriteria(), parentFilterNode.isDeep());
     }
 
     List<GenericCAEXObject> execute(List<GenericCAEXObject> objects) {
-        return CAEXFilter.applyFilter(objects, getFilterString(), parentFilterNode.isDeep());
+        ElementIndex index = getElementIndex();
+
+        if (index == null || objects == null) {
+            return CAEXFilter.applyFilter(objects, getCriteria(), parentFilterNode.isDeep());
+        }
+
+        List<GenericCAEXObject> res = new ArrayList<>();
+
+        for (GenericCAEXObject object : objects) {
+            if (!index.find(object, getCriteria(), res)) {
+                res.addAll(CAEXFilter.applyFilter(object, getCriteria(), true));
+            }
+        }
+
+        return res;
     }
 
     /**
@@ -0,0 +1,191 @@
+package org.fd.jcaex.filter;
+
+import org.fd.jcaex.GenericCAEXObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index of the element names of a generic object tree.
+ * <p>
+ * Objects of the tree are numbered in pre-order (document order), so the descendants of an object are the objects
+ * between its number and the end of its subtree. For each element name the numbers of the objects with that name
+ * are kept in ascending order, so the descendants of any object with a given name are found by two binary searches.
+ * </p>
+ *
+ * @see CAEXFilter#withElementIndex()
+ */
+final class ElementIndex {
+
+    // Objects in pre-order and the end (exclusive) of the subtree of each
+    private final GenericCAEXObject[] objects;
+    private final int[] subtreeEnds;
+
+    // Numbers of objects by element name, ascending
+    private final Map<String, int[]> byName = new HashMap<>();
+
+    // Numbers of objects, built on the first query for an object other than the root
+    private Map<GenericCAEXObject, Integer> numbers;
+
+    /**
+     * Builds the index of a tree. Lazily generalized trees are generalized completely.
+     *
+     * @param root Root of the tree.
+     */
+    ElementIndex(GenericCAEXObject root) {
+        List<GenericCAEXObject> objectList = new ArrayList<>();
+        int[] ends = new int[16];
+
+        // Objects and the position of their next child, the explicit stack of a pre-order walk
+        Deque<GenericCAEXObject> stack = new ArrayDeque<>();
+        int[] nextChildren = new int[16];
+        int[] stackNumbers = new int[16];
+
+        stack.push(root);
+        objectList.add(root);
+
+        while (!stack.isEmpty()) {
+            int depth = stack.size() - 1;
+            GenericCAEXObject obj = stack.peek();
+
+            if (nextChildren[depth] < obj.childCount()) {
+                GenericCAEXObject child = obj.childAt(nextChildren[depth]++);
+
+                if (depth + 1 == nextChildren.length) {
+                    nextChildren = Arrays.copyOf(nextChildren, nextChildren.length * 2);
+                    stackNumbers = Arrays.copyOf(stackNumbers, stackNumbers.length * 2);
+                }
+
+                nextChildren[depth + 1] = 0;
+                stackNumbers[depth + 1] = objectList.size();
+                stack.push(child);
+                objectList.add(child);
+            } else {
+                if (stackNumbers[depth] >= ends.length) {
+                    ends = Arrays.copyOf(ends, Math.max(ends.length * 2, stackNumbers[depth] + 1));
+                }
+
+                ends[stackNumbers[depth]] = objectList.size();
+                stack.pop();
+            }
+        }
+
+        this.objects = objectList.toArray(new GenericCAEXObject[0]);
+        this.subtreeEnds = Arrays.copyOf(ends, objects.length);
+
+        Map<String, int[]> counts = new HashMap<>();
+
+        for (GenericCAEXObject obj : objects) {
+            if (obj.getElementName() != null) {
+                counts.computeIfAbsent(obj.getElementName(), k -> new int[1])[0]++;
+            }
+        }
+
+        counts.forEach((name, count) -> byName.put(name, new int[count[0]]));
+
+        for (int i = 0; i < objects.length; i++) {
+            String name = objects[i].getElementName();
+
+            if (name != null) {
+                int[] count = counts.get(name);
+                int[] numbersOfName = byName.get(name);
+
+                numbersOfName[numbersOfName.length - count[0]--] = i;
+            }
+        }
+    }
+
+    /**
+     * Finds the descendants of an object which fulfill filter criteria.
+     * Only criteria with a single alternative selecting by element name can be served by the index.
+     *
+     * @param object Object whose descendants are searched.
+     * @param criteria Filter criteria.
+     * @param res List of results. Results are added in document order.
+     * @return False if the criteria can't be served or the object isn't part of the tree, nothing is added then.
+     */
+    boolean find(GenericCAEXObject object, FilterCriteria criteria, List<GenericCAEXObject> res) {
+        if (criteria.alternatives.size() != 1 || criteria.alternatives.get(0).elementName == null) {
+            return false;
+        }
+
+        int number = numberOf(object);
+
+        if (number < 0) {
+            return false;
+        }
+
+        FilterCriteria.Alternative alternative = criteria.alternatives.get(0);
+        int[] numbersOfName = byName.get(alternative.elementName);
+
+        if (numbersOfName != null) {
+            int to = lowerBound(numbersOfName, subtreeEnds[number]);
+
+            for (int i = lowerBound(numbersOfName, number + 1); i < to; i++) {
+                GenericCAEXObject obj = objects[numbersOfName[i]];
+
+                if (alternative.testAttributes(obj)) {
+                    res.add(obj);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Estimates heap memory used by the index, assuming compressed references.
+     *
+     * @return Estimated number of bytes.
+     */
+    long estimatedBytes() {
+        // Arrays of objects and subtree ends
+        long res = 2 * arrayBytes(objects.length);
+
+        // Map entries, arrays of numbers (names are shared with the tree)
+        for (int[] numbersOfName : byName.values()) {
+            res += 32 + arrayBytes(numbersOfName.length);
+        }
+
+        if (numbers != null) {
+            // Key and value slots of the identity map, boxed numbers
+            res += arrayBytes(4 * Integer.highestOneBit(Math.max(objects.length * 3 / 2, 1))) + 16L * objects.length;
+        }
+
+        return res;
+    }
+
+    private int numberOf(GenericCAEXObject object) {
+        if (object == objects[0]) {
+            return 0;
+        }
+
+        if (numbers == null) {
+            numbers = new IdentityHashMap<>(objects.length);
+
+            for (int i = 0; i < objects.length; i++) {
+                numbers.put(objects[i], i);
+            }
+        }
+
+        Integer res = numbers.get(object);
+
+        return res != null ? res : -1;
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int res = Arrays.binarySearch(values, key);
+
+        return res >= 0 ? res : -res - 1;
+    }
+
+    private static long arrayBytes(int length) {
+        return 16 + 4L * length;
+    }
+}
@@ -0,0 +1,251 @@
+package org.fd.jcaex.filter;
+
+import org.fd.jcaex.CAEXNavigable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled filter criteria.
+ * <p>
+ * The criteria string (see {@link CAEXFilter#applyFilter(CAEXNavigable, String, boolean)}) is parsed once
+ * into its alternatives, each with an element name and attribute checks with precompiled value matchers.
+ * Objects of this class are immutable, so they can be reused for any number of objects and threads.
+ * </p>
+ */
+public final class FilterCriteria {
+
+    private static final Pattern CRITERIA_PATTERN = Pattern.compile("\\s*(?:((?<elementName>\\w+)\\s*$)|((?<elemName>\\w+)?\\s*(?:\\[\\s*(?<attrName>\\w+)\\s*(?:\\s*(?:='(?<attrVal>.*?)'\\s*)?)?\\])+?))");
+
+    /**
+     * Matcher of attribute values, compiled from a regular expression.
+     * Plain literals and literals followed or preceded by .* or .+ are matched without regular expressions,
+     * every other expression with a precompiled pattern. All matchers match the same values as {@link String#matches(String)}.
+     */
+    abstract static class ValueMatcher {
+
+        private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+        abstract boolean matches(String value);
+
+        /**
+         * Compiles a regular expression into the simplest matcher.
+         *
+         * @param regex Regular expression.
+         * @return Value matcher.
+         */
+        static ValueMatcher compile(String regex) {
+            if (isLiteral(regex, 0, regex.length())) {
+                return new Literal(regex);
+            }
+
+            if (regex.length() >= 2 && isWildcard(regex, regex.length() - 2) && isLiteral(regex, 0, regex.length() - 2)) {
+                return new Prefix(regex.substring(0, regex.length() - 2), regex.charAt(regex.length() - 1) == '+');
+            }
+
+            if (regex.length() >= 2 && isWildcard(regex, 0) && isLiteral(regex, 2, regex.length())) {
+                return new Suffix(regex.substring(2), regex.charAt(1) == '+');
+            }
+
+            return new Regex(Pattern.compile(regex));
+        }
+
+        private static boolean isLiteral(String regex, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (METACHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static boolean isWildcard(String regex, int idx) {
+            return regex.charAt(idx) == '.' && (regex.charAt(idx + 1) == '*' || regex.charAt(idx + 1) == '+');
+        }
+
+        /**
+         * Checks whether a part of a value can be matched by . (any character but line terminators).
+         *
+         * @param value Value.
+         * @param from Start of the part.
+         * @param to End of the part.
+         * @param nonEmpty Whether the part must not be empty (.+).
+         * @return True if the part matches.
+         */
+        static boolean matchesAny(String value, int from, int to, boolean nonEmpty) {
+            if (nonEmpty && from >= to) {
+                return false;
+            }
+
+            for (int i = from; i < to; i++) {
+                char c = value.charAt(i);
+
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static final class Literal extends ValueMatcher {
+
+        private final String literal;
+
+        Literal(String literal) {
+            this.literal = literal;
+        }
+
+        @Override
+        boolean matches(String value) {
+            return value.equals(literal);
+        }
+    }
+
+    private static final class Prefix extends ValueMatcher {
+
+        private final String prefix;
+        private final boolean nonEmpty;
+
+        Prefix(String prefix, boolean nonEmpty) {
+            this.prefix = prefix;
+            this.nonEmpty = nonEmpty;
+        }
+
+        @Override
+        boolean matches(String value) {
+            return value.startsWith(prefix) && matchesAny(value, prefix.length(), value.length(), nonEmpty);
+        }
+    }
+
+    private static final class Suffix extends ValueMatcher {
+
+        private final String suffix;
+        private final boolean nonEmpty;
+
+        Suffix(String suffix, boolean nonEmpty) {
+            this.suffix = suffix;
+            this.nonEmpty = nonEmpty;
+        }
+
+        @Override
+        boolean matches(String value) {
+            return value.endsWith(suffix) && matchesAny(value, 0, value.length() - suffix.length(), nonEmpty);
+        }
+    }
+
+    private static final class Regex extends ValueMatcher {
+
+        private final Pattern pattern;
+
+        Regex(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        boolean matches(String value) {
+            return pattern.matcher(value).matches();
+        }
+    }
+
+    /**
+     * Check of an attribute: existence and optionally value.
+     */
+    static final class AttributeCheck {
+
+        final String name;
+        final ValueMatcher value;
+
+        AttributeCheck(String name, ValueMatcher value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        boolean test(CAEXNavigable<?> obj) {
+            return obj.hasAttribute(name) && (value == null || value.matches((String) obj.getAttribute(name)));
+        }
+    }
+
+    /**
+     * One of the comma separated alternatives of the criteria.
+     */
+    static final class Alternative {
+
+        // Null if any element passes
+        final String elementName;
+        final AttributeCheck[] attributeChecks;
+
+        Alternative(String elementName, AttributeCheck[] attributeChecks) {
+            this.elementName = elementName;
+            this.attributeChecks = attributeChecks;
+        }
+
+        /**
+         * Tests attributes of an object. All checks have to pass.
+         *
+         * @param obj Object.
+         * @return True if the object passes all attribute checks.
+         */
+        boolean testAttributes(CAEXNavigable<?> obj) {
+            for (AttributeCheck check : attributeChecks) {
+                if (!check.test(obj)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private final String source;
+    final List<Alternative> alternatives;
+
+    private FilterCriteria(String source, List<Alternative> alternatives) {
+        this.source = source;
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * Compiles a criteria string.
+     * Alternatives which don't follow the criteria format are left out, as they would never select anything.
+     *
+     * @param filterCriteria Criteria in 'kind of' simplified XPath format (see {@link CAEXFilter#applyFilter(CAEXNavigable, String, boolean)}).
+     * @return Compiled criteria.
+     * @throws java.util.regex.PatternSyntaxException if an attribute value pattern isn't a valid regular expression.
+     */
+    public static FilterCriteria compile(String filterCriteria) {
+        List<Alternative> alternatives = new ArrayList<>();
+
+        for (String criteria : filterCriteria.split(",")) {
+            Matcher m = CRITERIA_PATTERN.matcher(criteria);
+
+            if (m.matches()) {
+                String elementName = m.group("elementName") != null ? m.group("elementName") : m.group("elemName");
+                List<AttributeCheck> checks = new ArrayList<>();
+
+                if (m.group("attrName") != null) {
+                    m.reset();
+
+                    while (m.find()) {
+                        String attrVal = m.group("attrVal");
+
+                        checks.add(new AttributeCheck(m.group("attrName"), attrVal != null ? ValueMatcher.compile(attrVal) : null));
+                    }
+                }
+
+                alternatives.add(new Alternative(elementName, checks.toArray(new AttributeCheck[0])));
+            }
+        }
+
+        return new FilterCriteria(filterCriteria, List.copyOf(alternatives));
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
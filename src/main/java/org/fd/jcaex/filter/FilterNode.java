@@ -3,7 +3,10 @@ package org.fd.jcaex.filter;
 import org.fd.jcaex.GenericCAEXObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -168,17 +171,15 @@ public class FilterNode {
                     break;
 
                 case "A":
-                    List<GenericCAEXObject> actualResParents = actualRes.stream().map(GenericCAEXObject::getParent).collect(Collectors.toList());
-                    List<GenericCAEXObject> resParents = res.stream().map(GenericCAEXObject::getParent).collect(Collectors.toList());
+                    // Objects whose parents have results on both sides, taken from the smaller side
+                    if (actualRes.size() < res.size()) {
+                        Set<GenericCAEXObject> resParents = parentsOf(res);
 
-                    if (actualResParents.size() < resParents.size()) {
-                        actualResParents.retainAll(resParents);
-
-                        res = actualRes.stream().filter(p -> actualResParents.contains(p.getParent())).collect(Collectors.toList());
+                        res = actualRes.stream().filter(p -> resParents.contains(p.getParent())).collect(Collectors.toList());
                     } else {
-                        resParents.retainAll(actualResParents);
+                        Set<GenericCAEXObject> actualResParents = parentsOf(actualRes);
 
-                        res = res.stream().filter(p -> resParents.contains(p.getParent())).collect(Collectors.toList());
+                        res = res.stream().filter(p -> actualResParents.contains(p.getParent())).collect(Collectors.toList());
                     }
 
                     break;
@@ -224,7 +225,10 @@ public class FilterNode {
                     break;
 
                 case "A":
-                    res = res.stream().filter(actualRes::contains).collect(Collectors.toList());
+                    Set<GenericCAEXObject> actualResSet = identitySet(actualRes.size());
+                    actualResSet.addAll(actualRes);
+
+                    res = res.stream().filter(actualResSet::contains).collect(Collectors.toList());
                     break;
 
                 default:
@@ -235,6 +239,32 @@ public class FilterNode {
         return parentFilterNode != null ? res.stream().map(GenericCAEXObject::getParent).collect(Collectors.toList()) : res;
     }
 
+    /**
+     * Collects parents of objects. Generic objects are compared by identity.
+     *
+     * @param objects Objects.
+     * @return Set of parent objects.
+     */
+    private static Set<GenericCAEXObject> parentsOf(List<GenericCAEXObject> objects) {
+        Set<GenericCAEXObject> res = identitySet(objects.size());
+
+        for (GenericCAEXObject obj : objects) {
+            res.add(obj.getParent());
+        }
+
+        return res;
+    }
+
+    /**
+     * Creates an empty set comparing objects by identity.
+     *
+     * @param expectedSize Expected number of objects.
+     * @return New set.
+     */
+    private static Set<GenericCAEXObject> identitySet(int expectedSize) {
+        return Collections.newSetFromMap(new IdentityHashMap<>(expectedSize));
+    }
+
     CAEXFilter getParentFilter() {
         return parentFilter;
     }
@@ -2,13 +2,15 @@ package org.fd.jcaex.v2_15;
 
 import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlElement;
+import org.fd.jcaex.AttributeValue;
+import org.fd.jcaex.TypedAttribute;
 
 import java.util.List;
 
 /**
  * Defines base structures for attribute definitions.
  */
-public class Attribute extends CAEXObject {
+public class Attribute extends CAEXObject implements TypedAttribute {
 
     /**
      * A reference to a definition of a defined attribute, e. g. to an attribute in a standardized library, this allows the semantic definition of the attribute.
@@ -57,6 +59,10 @@ public class Attribute extends CAEXObject {
     @XmlAttribute(name = "AttributeDataType")
     String attributeDataType;
 
+    private transient AttributeValue typedValue;
+
+    private transient AttributeValue typedDefaultValue;
+
     @Override
     public String toString() {
         return "Attribute{" +
@@ -72,4 +78,28 @@ public class Attribute extends CAEXObject {
     public Object getValue() {
         return value;
     }
+
+    @Override
+    public String getAttributeDataType() {
+        return attributeDataType;
+    }
+
+    @Override
+    public AttributeValue getTypedValue() {
+        return typedValue;
+    }
+
+    @Override
+    public AttributeValue getTypedDefaultValue() {
+        return typedDefaultValue;
+    }
+
+    @Override
+    public void parseTypedValues() {
+        AttributeValue parsedValue = AttributeValue.parse(attributeDataType, value);
+        AttributeValue parsedDefaultValue = AttributeValue.parse(attributeDataType, defaultValue);
+
+        typedValue = parsedValue;
+        typedDefaultValue = parsedDefaultValue;
+    }
 }
@@ -124,6 +124,10 @@ public class CAEXFile extends CAEXBasicObject implements org.fd.jcaex.CAEXFile {
         return schemaVersion;
     }
 
+    public List<ExternalReference> getExternalReferences() {
+        return externalReferences;
+    }
+
     public List<InstanceHierarchy> getInstanceHierarchies() {
         return instanceHierarchies;
     }
@@ -21,6 +21,14 @@ public class Header implements GeneralizableCAEXObject {
 
         @XmlValue
         String value;
+
+        @Override
+        public String toString() {
+            return "Description{" +
+                    "changeMode=" + changeMode +
+                    ", value='" + value + '\'' +
+                    '}';
+        }
     }
 
     /**
@@ -33,6 +41,14 @@ public class Header implements GeneralizableCAEXObject {
 
         @XmlValue
         String value;
+
+        @Override
+        public String toString() {
+            return "Version{" +
+                    "changeMode=" + changeMode +
+                    ", value='" + value + '\'' +
+                    '}';
+        }
     }
 
     /**
@@ -66,6 +82,14 @@ public class Header implements GeneralizableCAEXObject {
 
         @XmlValue
         String value;
+
+        @Override
+        public String toString() {
+            return "Copyright{" +
+                    "changeMode=" + changeMode +
+                    ", value='" + value + '\'' +
+                    '}';
+        }
     }
 
     /**
@@ -2,13 +2,15 @@ package org.fd.jcaex.v3_0;
 
 import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlElement;
+import org.fd.jcaex.AttributeValue;
+import org.fd.jcaex.TypedAttribute;
 
 import java.util.List;
 
 /**
  * Defines base structures for attribute definitions.
  */
-public class Attribute extends CAEXObject {
+public class Attribute extends CAEXObject implements TypedAttribute {
 
     /**
      * A reference to a definition of a defined attribute, e. g. to an attribute in a standardized library, this allows the semantic definition of the attribute.
@@ -63,6 +65,10 @@ public class Attribute extends CAEXObject {
     @XmlAttribute(name = "RefAttributeType")
     protected String refAttributeType;
 
+    private transient AttributeValue typedValue;
+
+    private transient AttributeValue typedDefaultValue;
+
     @Override
     public String toString() {
         return "Attribute{" +
@@ -71,4 +77,27 @@ public class Attribute extends CAEXObject {
                 '}';
     }
 
+    @Override
+    public String getAttributeDataType() {
+        return attributeDataType;
+    }
+
+    @Override
+    public AttributeValue getTypedValue() {
+        return typedValue;
+    }
+
+    @Override
+    public AttributeValue getTypedDefaultValue() {
+        return typedDefaultValue;
+    }
+
+    @Override
+    public void parseTypedValues() {
+        AttributeValue parsedValue = AttributeValue.parse(attributeDataType, value);
+        AttributeValue parsedDefaultValue = AttributeValue.parse(attributeDataType, defaultValue);
+
+        typedValue = parsedValue;
+        typedDefaultValue = parsedDefaultValue;
+    }
 }
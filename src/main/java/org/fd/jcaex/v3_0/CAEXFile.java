@@ -22,6 +22,14 @@ public class CAEXFile extends CAEXBasicObject implements org.fd.jcaex.CAEXFile {
 
         @XmlAttribute(name = "Alias", required = true)
         String alias;
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
     }
 
     /**
@@ -111,4 +119,7 @@ public class CAEXFile extends CAEXBasicObject implements org.fd.jcaex.CAEXFile {
         return schemaVersion;
     }
 
+    public List<ExternalReference> getExternalReferences() {
+        return externalReferences;
+    }
 }
@@ -27,4 +27,12 @@ public class CAEXObject extends CAEXBasicObject {
                 ", name='" + name + '\'' +
                 '}';
     }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
 }
@@ -1,6 +1,7 @@
 package org.fd.jcaex.v3_0;
 
 import jakarta.xml.bind.annotation.*;
+import org.fd.jcaex.GeneralizableCAEXObject;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -9,7 +10,7 @@ import java.util.Map;
 /**
  * Defines a group of organizational information, like description, version, revision, copyright, etc.
  */
-public class Header {
+public class Header implements GeneralizableCAEXObject {
 
     /**
      * Textual description for CAEX objects.
@@ -20,6 +21,14 @@ public class Header {
 
         @XmlValue
         String value;
+
+        @Override
+        public String toString() {
+            return "Description{" +
+                    "changeMode=" + changeMode +
+                    ", value='" + value + '\'' +
+                    '}';
+        }
     }
 
     /**
@@ -32,6 +41,14 @@ public class Header {
 
         @XmlValue
         String value;
+
+        @Override
+        public String toString() {
+            return "Version{" +
+                    "changeMode=" + changeMode +
+                    ", value='" + value + '\'' +
+                    '}';
+        }
     }
 
     /**
@@ -65,6 +82,14 @@ public class Header {
 
         @XmlValue
         String value;
+
+        @Override
+        public String toString() {
+            return "Copyright{" +
+                    "changeMode=" + changeMode +
+                    ", value='" + value + '\'' +
+                    '}';
+        }
     }
 
     /**
@@ -0,0 +1,378 @@
+package org.fd.jcaex.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation processor generating generalizers of CAEX model classes.
+ * <p>
+ * For each model package it generates a GeneratedGeneralizers class holding one generalizer per
+ * GeneralizableCAEXObject class of the package. A generalizer reports the {@code @XmlAttribute} and
+ * {@code @XmlElement} fields of its class to a GeneralizationSink with plain field reads, following the
+ * same rules as the reflective generalization: fields of the class first, then fields of its superclasses.
+ * Classes having fields which can't be read from the generated code are left to reflective generalization.
+ * </p>
+ * <p>
+ * Model packages are given by the {@value #OPTION_PACKAGES} option as a comma separated list.
+ * </p>
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(GeneralizerProcessor.OPTION_PACKAGES)
+public class GeneralizerProcessor extends AbstractProcessor {
+
+    static final String OPTION_PACKAGES = "jcaex.generalizerPackages";
+    static final String DEFAULT_PACKAGES = "org.fd.jcaex.v2_15,org.fd.jcaex.v3_0";
+
+    static final String GENERALIZABLE = "org.fd.jcaex.GeneralizableCAEXObject";
+    static final String XML_ATTRIBUTE = "jakarta.xml.bind.annotation.XmlAttribute";
+    static final String XML_ELEMENT = "jakarta.xml.bind.annotation.XmlElement";
+    static final String GENERATED_CLASS_NAME = "GeneratedGeneralizers";
+
+    /**
+     * Kind of an annotated field, as in the reflective generalization.
+     */
+    enum Kind { ATTRIBUTE, LIST, SINGLE, SIMPLE, IGNORED }
+
+    private boolean generated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+
+        Elements elements = processingEnv.getElementUtils();
+        TypeElement generalizable = elements.getTypeElement(GENERALIZABLE);
+
+        if (generalizable == null) {
+            return false;
+        }
+
+        String packagesOption = processingEnv.getOptions().getOrDefault(OPTION_PACKAGES, DEFAULT_PACKAGES);
+        List<String> packages = Arrays.stream(packagesOption.split(",")).map(String::trim).filter(p -> !p.isEmpty()).collect(Collectors.toList());
+
+        // Model classes of each package, including nested ones, ordered by name for a stable output
+        Map<String, Map<String, TypeElement>> classesByPackage = new LinkedHashMap<>();
+
+        for (Element root : roundEnv.getRootElements()) {
+            if (root instanceof TypeElement) {
+                String packageName = elements.getPackageOf(root).getQualifiedName().toString();
+
+                if (packages.contains(packageName)) {
+                    collectModelClasses((TypeElement) root, generalizable, classesByPackage.computeIfAbsent(packageName, k -> new TreeMap<>()));
+                }
+            }
+        }
+
+        for (Map.Entry<String, Map<String, TypeElement>> entry : classesByPackage.entrySet()) {
+            generate(entry.getKey(), List.copyOf(entry.getValue().values()));
+        }
+
+        generated = !classesByPackage.isEmpty();
+
+        return false;
+    }
+
+    /**
+     * Collects a type and its nested types if they are generalizable classes.
+     *
+     * @param type Type element.
+     * @param generalizable Element of the GeneralizableCAEXObject interface.
+     * @param res Map of qualified names and model classes.
+     */
+    private void collectModelClasses(TypeElement type, TypeElement generalizable, Map<String, TypeElement> res) {
+        Types types = processingEnv.getTypeUtils();
+
+        if (type.getKind() == ElementKind.CLASS
+                && !type.getModifiers().contains(Modifier.PRIVATE)
+                && !type.getModifiers().contains(Modifier.ABSTRACT)
+                && types.isAssignable(types.erasure(type.asType()), types.erasure(generalizable.asType()))) {
+            res.put(type.getQualifiedName().toString(), type);
+        }
+
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (nested.getModifiers().contains(Modifier.STATIC)) {
+                collectModelClasses(nested, generalizable, res);
+            }
+        }
+    }
+
+    /**
+     * Generates the generalizers of a package.
+     *
+     * @param packageName Name of the package.
+     * @param classes Model classes of the package.
+     */
+    private void generate(String packageName, List<TypeElement> classes) {
+        Map<TypeElement, List<String>> bodies = new LinkedHashMap<>();
+
+        for (TypeElement type : classes) {
+            List<String> body = generateBody(type, packageName);
+
+            if (body != null) {
+                bodies.put(type, body);
+            } else {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Fields of " + type.getQualifiedName() + " aren't accessible, it's generalized reflectively", type);
+            }
+        }
+
+        Filer filer = processingEnv.getFiler();
+
+        try {
+            Writer writer = filer.createSourceFile(packageName + "." + GENERATED_CLASS_NAME, classes.toArray(new Element[0])).openWriter();
+
+            try (PrintWriter out = new PrintWriter(writer)) {
+                out.println("package " + packageName + ";");
+                out.println();
+                out.println("import org.fd.jcaex.GeneralizationSink;");
+                out.println("import org.fd.jcaex.Generalizer;");
+                out.println();
+                out.println("import java.util.Map;");
+                out.println();
+                out.println("/**");
+                out.println(" * Generalizers of the CAEX model classes of this package.");
+                out.println(" * <p>");
+                out.println(" * Generated by " + getClass().getName() + " at compile time, do not edit.");
+                out.println(" * </p>");
+                out.println(" */");
+                out.println("public final class " + GENERATED_CLASS_NAME + " {");
+                out.println();
+                out.println("    private static final Map<Class<?>, Generalizer<?>> GENERALIZERS = Map.ofEntries(");
+
+                int i = 0;
+
+                for (TypeElement type : bodies.keySet()) {
+                    String typeName = type.getQualifiedName().toString();
+
+                    out.print("            Map.entry(" + typeName + ".class, (Generalizer<" + typeName + ">) " + GENERATED_CLASS_NAME + "::" + methodName(type, packageName) + ")");
+                    out.println(++i < bodies.size() ? "," : ");");
+                }
+
+                if (bodies.isEmpty()) {
+                    out.println("    );");
+                }
+
+                out.println();
+                out.println("    private " + GENERATED_CLASS_NAME + "() {}");
+                out.println();
+                out.println("    /**");
+                out.println("     * Gets the generalizers of the model classes of this package.");
+                out.println("     *");
+                out.println("     * @return Map of model classes and their generalizers.");
+                out.println("     */");
+                out.println("    public static Map<Class<?>, Generalizer<?>> generalizers() {");
+                out.println("        return GENERALIZERS;");
+                out.println("    }");
+
+                for (Map.Entry<TypeElement, List<String>> entry : bodies.entrySet()) {
+                    out.println();
+                    out.println("    private static void " + methodName(entry.getKey(), packageName) + "(" + entry.getKey().getQualifiedName() + " o, GeneralizationSink sink) {");
+                    entry.getValue().forEach(line -> out.println("        " + line));
+                    out.println("    }");
+                }
+
+                out.println("}");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to generate generalizers of " + packageName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Generates statements of a generalizer.
+     *
+     * @param type Model class.
+     * @param packageName Package of the generated class.
+     * @return Statements or null if a field can't be read from the generated class.
+     */
+    private List<String> generateBody(TypeElement type, String packageName) {
+        Elements elements = processingEnv.getElementUtils();
+        List<String> res = new ArrayList<>();
+
+        // Fields of the class first, then fields of its superclasses
+        for (TypeElement current = type; current != null; current = superclassOf(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                AnnotationMirror xmlAttribute = annotation(field, XML_ATTRIBUTE);
+                AnnotationMirror xmlElement = annotation(field, XML_ELEMENT);
+
+                if (xmlAttribute == null && xmlElement == null) {
+                    continue;
+                }
+
+                if (!isAccessible(field, current, packageName)) {
+                    return null;
+                }
+
+                String fieldExpr = (current == type ? "o" : "((" + current.getQualifiedName() + ") o)") + "." + field.getSimpleName();
+                AnnotationMirror annotation = xmlAttribute != null ? xmlAttribute : xmlElement;
+                String name = elements.getConstantExpression(annotationValue(annotation, "name"));
+                Object required = annotationValue(annotation, "required");
+
+                switch (xmlAttribute != null ? Kind.ATTRIBUTE : kindOf(field.asType())) {
+                    case ATTRIBUTE:
+                        res.add("sink.attribute(" + name + ", " + fieldExpr + ", " + required + ");");
+                        break;
+
+                    case LIST:
+                        res.add("sink.children(" + name + ", " + fieldExpr + ");");
+                        break;
+
+                    case SINGLE:
+                        res.add("sink.child(" + name + ", " + fieldExpr + ");");
+                        break;
+
+                    case SIMPLE:
+                        res.add("sink.simple(" + name + ", " + fieldExpr + ", " + required + ");");
+                        break;
+
+                    default:
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Determines kind of an element field, as the reflective generalization does.
+     *
+     * @param fieldType Type of the field.
+     * @return Kind of the field.
+     */
+    private Kind kindOf(TypeMirror fieldType) {
+        if (fieldType.getKind() == TypeKind.DECLARED && !((DeclaredType) fieldType).getTypeArguments().isEmpty()) {
+            DeclaredType declaredType = (DeclaredType) fieldType;
+            TypeElement rawType = (TypeElement) declaredType.asElement();
+            TypeMirror typeArg = declaredType.getTypeArguments().get(0);
+
+            boolean isList = rawType.getQualifiedName().contentEquals("java.util.List");
+            boolean isGeneralizable = typeArg.getKind() == TypeKind.DECLARED && isGeneralizable((TypeElement) ((DeclaredType) typeArg).asElement());
+
+            return isList && isGeneralizable ? Kind.LIST : Kind.IGNORED;
+        }
+
+        if (fieldType.getKind() == TypeKind.DECLARED && isGeneralizable((TypeElement) ((DeclaredType) fieldType).asElement())) {
+            return Kind.SINGLE;
+        }
+
+        return Kind.SIMPLE;
+    }
+
+    /**
+     * Checks if a class is generalizable: one of its superclasses implements GeneralizableCAEXObject directly.
+     *
+     * @param type Class.
+     * @return True if the class is generalizable.
+     */
+    private boolean isGeneralizable(TypeElement type) {
+        for (TypeElement c = superclassOf(type); c != null; c = superclassOf(c)) {
+            for (TypeMirror iface : c.getInterfaces()) {
+                if (((TypeElement) processingEnv.getTypeUtils().asElement(iface)).getQualifiedName().contentEquals(GENERALIZABLE)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if a field can be read from the generated class.
+     *
+     * @param field Field.
+     * @param declaringType Class declaring the field.
+     * @param packageName Package of the generated class.
+     * @return True if the field is accessible.
+     */
+    private boolean isAccessible(VariableElement field, TypeElement declaringType, String packageName) {
+        Set<Modifier> modifiers = field.getModifiers();
+
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            return false;
+        }
+
+        PackageElement fieldPackage = processingEnv.getElementUtils().getPackageOf(declaringType);
+
+        return fieldPackage.getQualifiedName().contentEquals(packageName) || modifiers.contains(Modifier.PUBLIC);
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        TypeElement res = (TypeElement) ((DeclaredType) superclass).asElement();
+
+        return res.getQualifiedName().contentEquals("java.lang.Object") ? null : res;
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+
+        return null;
+    }
+
+    private Object annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets name of the generated method of a model class, e.g. generalizeCAEXFile_ExternalReference.
+     *
+     * @param type Model class.
+     * @param packageName Package of the class.
+     * @return Method name.
+     */
+    private static String methodName(TypeElement type, String packageName) {
+        return "generalize" + type.getQualifiedName().toString().substring(packageName.length() + 1).replace('.', '_');
+    }
+}
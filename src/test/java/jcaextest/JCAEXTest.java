@@ -1,26 +1,59 @@
 package jcaextest;
 
 import jakarta.xml.bind.JAXBException;
+import org.fd.jcaex.AMLXContainer;
+import org.fd.jcaex.AttributeValue;
+import org.fd.jcaex.CAEXBatchResult;
 import org.fd.jcaex.CAEXFile;
 import org.fd.jcaex.CAEXFileParseException;
+import org.fd.jcaex.CAEXLibrary;
+import org.fd.jcaex.CAEXModel;
+import org.fd.jcaex.CAEXReader;
+import org.fd.jcaex.ColumnarCAEXModel;
+import org.fd.jcaex.CAEXVisitor;
+import org.fd.jcaex.ExternalReferenceResolver;
+import org.fd.jcaex.GeneralizableCAEXObject;
+import org.fd.jcaex.Generalizer;
 import org.fd.jcaex.GenericCAEXObject;
+import org.fd.jcaex.LibraryCache;
+import org.fd.jcaex.ValidationMode;
 import org.fd.jcaex.filter.CAEXFilter;
+import org.fd.jcaex.filter.ElementFilter;
+import org.fd.jcaex.filter.FilterCriteria;
 import org.fd.jcaex.filter.TextNodeFilter;
+import org.fd.jcaex.v2_15.InternalElement;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +77,37 @@ public class JCAEXTest {
                     "<SourceDocumentInformation OriginID=\"IEC SC65E WG 9\" OriginName=\"IEC SC65E WG 9\" OriginVersion=\"2.10.0\" LastWritingDateTime=\"2016-08-25T09:58:00.0Z\" OriginProjectID=\"Automation Markup Language Standard Library\" OriginRelease=\"2.10.0\" OriginVendor=\"IEC\" OriginVendorURL=\"www.iec.ch\" OriginProjectTitle=\"Automation Markup Language Standard Libraries\" />" +
                     "</CAEXFile>",
 
+            "invalidContent_2.15",
+                "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                    "<CAEXFile xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" FileName=\"Project4.aml\" SchemaVersion=\"2.15\" xsi:noNamespaceSchemaLocation=\"CAEX_ClassModel_V2.15.xsd\">\n" +
+                    "  <InstanceHierarchy>\n" +
+                    "  </InstanceHierarchy>\n" +
+                    "</CAEXFile>",
+
+            "library_2.15",
+                "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                    "<CAEXFile xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" FileName=\"Library.aml\" SchemaVersion=\"2.15\" xsi:noNamespaceSchemaLocation=\"CAEX_ClassModel_V2.15.xsd\">\n" +
+                    "  <RoleClassLib Name=\"AutomationMLBaseRoleClassLib\">\n" +
+                    "    <RoleClass Name=\"AutomationMLBaseRole\">\n" +
+                    "      <RoleClass Name=\"Resource\" RefBaseClassPath=\"AutomationMLBaseRoleClassLib/AutomationMLBaseRole\" />\n" +
+                    "    </RoleClass>\n" +
+                    "  </RoleClassLib>\n" +
+                    "</CAEXFile>",
+
+            "externalReference_2.15",
+                "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                    "<CAEXFile xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" FileName=\"Project.aml\" SchemaVersion=\"2.15\" xsi:noNamespaceSchemaLocation=\"CAEX_ClassModel_V2.15.xsd\">\n" +
+                    "  <ExternalReference Path=\"jcaextest_library_2.15.aml\" Alias=\"BaseLib\" />\n" +
+                    "  <RoleClassLib Name=\"ProjectRoleClassLib\">\n" +
+                    "    <RoleClass Name=\"Robot\" RefBaseClassPath=\"BaseLib@AutomationMLBaseRoleClassLib/AutomationMLBaseRole/Resource\" />\n" +
+                    "  </RoleClassLib>\n" +
+                    "</CAEXFile>",
+
+            "missingRoot",
+                "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                    "<InstanceHierarchy Name=\"Project4\">\n" +
+                    "</InstanceHierarchy>",
+
             "unsupportedVersion",
                 "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
                     "<CAEXFile xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" FileName=\"Project4.aml\" SchemaVersion=\"1.15\" xsi:noNamespaceSchemaLocation=\"CAEX_ClassModel_V2.15.xsd\">\n" +
@@ -915,6 +979,7 @@ public class JCAEXTest {
 
             assertEquals("3.0", caexFile.getSchemaVersion());
             assertEquals("AutomationML2.10BaseLibraries with Part 3 Geometry attributes.aml", caexFile.getFileName());
+            assertEquals("3.0", caexFile.generalize().getAttribute("SchemaVersion"));
 
             System.out.println("OK\n\n");
 
@@ -927,6 +992,18 @@ public class JCAEXTest {
 
             System.out.println("OK\n\n");
 
+            // 3/1
+            System.out.println("3/1 - Testing with missing root element and schema violations");
+            System.out.println("--------------------------------------------------------------");
+
+            File missingRoot = generateTestFile("missingRoot");
+            assertThrows(CAEXFileParseException.class, () -> CAEXFile.read(missingRoot), "File format error: <CAEXFile> root tag missing.");
+
+            File invalidContent = generateTestFile("invalidContent_2.15");
+            assertThrows(JAXBException.class, () -> CAEXFile.read(invalidContent), "InstanceHierarchy without required Name attribute should be rejected");
+
+            System.out.println("OK\n\n");
+
             // 4
             System.out.println("4 - Testing filtering on example .aml document");
             System.out.println("----------------------------------------------");
@@ -1037,6 +1114,948 @@ public class JCAEXTest {
         }
     }
 
+    @Test
+    public void readFromOtherSources() throws Exception {
+        System.out.println("\nReading from paths, streams, channels and buffers");
+        System.out.println("-------------------------------------------------");
+
+        Path goodVersion3_0 = generateTestFile("goodVersion_3.0").toPath();
+        Path unsupportedVersion = generateTestFile("unsupportedVersion").toPath();
+        byte[] contents = Files.readAllBytes(goodVersion3_0);
+
+        assertEquals("3.0", CAEXFile.read(goodVersion3_0).getSchemaVersion());
+        assertEquals("3.0", CAEXFile.read(new ByteArrayInputStream(contents)).getSchemaVersion());
+        assertEquals("3.0", CAEXFile.read(Channels.newChannel(new ByteArrayInputStream(contents))).getSchemaVersion());
+
+        ByteBuffer buffer = ByteBuffer.wrap(contents);
+        assertEquals("3.0", CAEXFile.read(buffer).getSchemaVersion());
+        assertEquals(0, buffer.position(), "Position of the source buffer should be left unchanged");
+
+        CAEXReader mappingReader = new CAEXReader().withMemoryMapping(true);
+        assertEquals("3.0", mappingReader.read(goodVersion3_0).getSchemaVersion());
+        assertThrows(CAEXFileParseException.class, () -> mappingReader.read(unsupportedVersion));
+        assertThrows(CAEXFileParseException.class, () -> CAEXFile.read(ByteBuffer.wrap(Files.readAllBytes(unsupportedVersion))));
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void validationModes() throws Exception {
+        System.out.println("\nReading with strict, parallel and no validation");
+        System.out.println("-----------------------------------------------");
+
+        Path filterTest1 = generateTestFile("filterTest1").toPath();
+        Path invalidContent = generateTestFile("invalidContent_2.15").toPath();
+
+        CAEXReader strictReader = new CAEXReader();
+        CAEXReader parallelReader = strictReader.withValidationMode(ValidationMode.PARALLEL);
+        CAEXReader nonValidatingReader = strictReader.withValidationMode(ValidationMode.NONE);
+
+        int expected = CAEXFilter.forObject(strictReader.read(filterTest1)).all().element("InternalElement").execute().size();
+
+        assertEquals(expected, CAEXFilter.forObject(parallelReader.read(filterTest1)).all().element("InternalElement").execute().size());
+        assertEquals(expected, CAEXFilter.forObject(nonValidatingReader.read(filterTest1)).all().element("InternalElement").execute().size());
+
+        assertThrows(JAXBException.class, () -> strictReader.read(invalidContent));
+        assertThrows(JAXBException.class, () -> parallelReader.read(invalidContent));
+        assertEquals("Project4.aml", nonValidatingReader.read(invalidContent).getFileName());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void readBatch() throws Exception {
+        System.out.println("\nReading a batch of files");
+        System.out.println("------------------------");
+
+        List<Path> paths = List.of(
+                generateTestFile("goodVersion_3.0").toPath(),
+                generateTestFile("unsupportedVersion").toPath(),
+                generateTestFile("goodVersion_2.15").toPath(),
+                generateTestFile("filterTest1").toPath());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CAEXBatchResult result;
+
+        try {
+            result = new CAEXReader().readAll(paths, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        System.out.println(result);
+
+        assertEquals(paths, result.getResults().stream().map(CAEXBatchResult.FileResult::getPath).collect(Collectors.toList()));
+        assertFalse(result.isSuccessful());
+        assertEquals(1, result.getFailures().size());
+        assertInstanceOf(CAEXFileParseException.class, result.getResults().get(1).getError());
+        assertEquals(List.of("3.0", "2.15", "2.15"), result.getCAEXFiles().stream().map(CAEXFile::getSchemaVersion).collect(Collectors.toList()));
+        assertTrue(result.getTotalBytes() > 0);
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void streamInternalElements() throws Exception {
+        System.out.println("\nStreaming top level internal elements");
+        System.out.println("-------------------------------------");
+
+        Path filterTest1 = generateTestFile("filterTest1").toPath();
+
+        List<GeneralizableCAEXObject> streamed;
+
+        try (Stream<GeneralizableCAEXObject> stream = CAEXFile.stream(filterTest1)) {
+            streamed = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(1, streamed.size());
+        assertEquals("Project4", ((InternalElement) streamed.get(0)).getName());
+
+        // The streamed subtree must contain everything the fully unmarshalled file contains
+        CAEXFile caexFile = CAEXFile.read(filterTest1.toFile());
+
+        assertEquals(
+                CAEXFilter.forObject(caexFile).all().element("InternalElement").execute().size() - 1,
+                CAEXFilter.forObject(streamed.get(0)).all().element("InternalElement").execute().size());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void readContainer() throws Exception {
+        System.out.println("\nReading AutomationML container");
+        System.out.println("------------------------------");
+
+        Path container = Path.of(USER_HOME + (USER_HOME.endsWith(DIR_SEP) ? "" : DIR_SEP) + TESTFILE_DIR + DIR_SEP + TESTFILE_PREFIX + "container.amlx");
+
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(container))) {
+            zos.putNextEntry(new ZipEntry("_rels/.rels"));
+            zos.write(("<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+                    "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                    "<Relationship Type=\"http://schemas.automationml.org/container/relationship/RootDocument\" Target=\"/Project.aml\" Id=\"R1\"/>" +
+                    "</Relationships>").getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry(new ZipEntry("_rels/Project.aml.rels"));
+            zos.write(("<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+                    "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                    "<Relationship Type=\"http://schemas.automationml.org/container/relationship/Library\" Target=\"lib/Lib%20A.aml\" Id=\"R2\"/>" +
+                    "</Relationships>").getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry(new ZipEntry("Project.aml"));
+            zos.write(testFileContents.get("filterTest1").getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry(new ZipEntry("lib/Lib A.aml"));
+            zos.write(testFileContents.get("goodVersion_3.0").getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry(new ZipEntry("lib/Unreferenced.aml"));
+            zos.write(testFileContents.get("unsupportedVersion").getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (AMLXContainer amlx = AMLXContainer.open(container)) {
+            assertEquals("Project.aml", amlx.getRootDocumentName());
+            assertEquals(List.of("lib/Lib A.aml"), amlx.getLibraryNames());
+
+            CAEXFile root = amlx.getRootDocument();
+
+            assertEquals("2.15", root.getSchemaVersion());
+            assertSame(root, amlx.getRootDocument());
+            assertEquals("3.0", amlx.getLibrary("lib/Lib A.aml").getSchemaVersion());
+            assertThrows(IllegalArgumentException.class, () -> amlx.getLibrary("lib/Unreferenced.aml"));
+        }
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void resolveExternalReferences() throws Exception {
+        System.out.println("\nResolving external references");
+        System.out.println("-----------------------------");
+
+        generateTestFile("library_2.15");
+        Path project = generateTestFile("externalReference_2.15").toPath();
+        Path otherProject = Files.copy(project, project.resolveSibling(TESTFILE_PREFIX + "externalReference_copy.aml"));
+
+        LibraryCache cache = new LibraryCache(4);
+        ExternalReferenceResolver resolver = ExternalReferenceResolver.forFile(project, cache);
+
+        assertEquals(List.of("BaseLib"), List.copyOf(resolver.getAliases().keySet()));
+
+        GenericCAEXObject robot = resolver.resolve("ProjectRoleClassLib/Robot");
+        assertNotNull(robot);
+
+        GenericCAEXObject resource = resolver.resolve((String) robot.getAttribute("RefBaseClassPath"));
+        assertNotNull(resource);
+        assertEquals("Resource", resource.getAttribute("Name"));
+        assertNull(resolver.resolve("BaseLib@AutomationMLBaseRoleClassLib/Missing"));
+        assertNull(resolver.resolve("UnknownLib@AutomationMLBaseRoleClassLib/AutomationMLBaseRole"));
+
+        // The library is shared between files referencing it
+        ExternalReferenceResolver otherResolver = ExternalReferenceResolver.forFile(otherProject, cache);
+        assertSame(resolver.getLibrary("BaseLib"), otherResolver.getLibrary("BaseLib"));
+        assertEquals(3, cache.size());
+
+        // Modified libraries are re-read through existing resolvers once they are refreshed
+        CAEXLibrary library = resolver.getLibrary("BaseLib");
+        Path libraryPath = resolver.getAliases().get("BaseLib");
+        Files.setLastModifiedTime(libraryPath, FileTime.fromMillis(Files.getLastModifiedTime(libraryPath).toMillis() + 2000));
+
+        assertSame(library, resolver.getLibrary("BaseLib"));
+        resolver.refresh();
+        assertNotSame(library, resolver.getLibrary("BaseLib"));
+        assertSame(resolver.getLibrary("BaseLib"), otherResolver.getLibrary("BaseLib"));
+        assertEquals("Resource", resolver.resolve((String) robot.getAttribute("RefBaseClassPath")).getAttribute("Name"));
+
+        // Evicted libraries are loaded again
+        cache.clear();
+        assertNotNull(resolver.resolve((String) robot.getAttribute("RefBaseClassPath")));
+        assertEquals(1, cache.size());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void readGenericTree() throws Exception {
+        System.out.println("\nReading generic object trees");
+        System.out.println("----------------------------");
+
+        CAEXReader reader = new CAEXReader();
+
+        for (String key : List.of("goodVersion_2.15", "goodVersion_3.0", "filterTest1", "library_2.15", "externalReference_2.15")) {
+            Path path = generateTestFile(key).toPath();
+
+            assertSameShape(reader.read(path).generalize(), reader.readGeneric(path), key);
+        }
+
+        // Model classes are generalized by the generalizers generated at compile time
+        assertTrue(Generalizer.of(InternalElement.class).getClass().getName().startsWith("org.fd.jcaex.v2_15.GeneratedGeneralizers"));
+        assertTrue(Generalizer.of(org.fd.jcaex.v3_0.CAEXFile.class).getClass().getName().startsWith("org.fd.jcaex.v3_0.GeneratedGeneralizers"));
+
+        Path filterTest1 = generateTestFile("filterTest1").toPath();
+        GenericCAEXObject root = reader.readGeneric(filterTest1);
+
+        assertEquals(
+                CAEXFilter.forObject(reader.read(filterTest1)).all().element("InternalElement").execute().size(),
+                CAEXFilter.forObject(root).all().element("InternalElement").execute().size());
+
+        // Source objects are unmarshalled on demand
+        GenericCAEXObject project = CAEXFilter.forObject(root).all().element("InternalElement").execute().get(0);
+
+        assertInstanceOf(InternalElement.class, project.getSourceCAEXObject());
+        assertEquals(project.getAttribute("Name"), ((InternalElement) project.getSourceCAEXObject()).getName());
+        assertInstanceOf(org.fd.jcaex.v2_15.CAEXFile.class, root.getSourceCAEXObject());
+
+        try (InputStream is = Files.newInputStream(filterTest1)) {
+            assertNull(reader.readGeneric(is).getSourceCAEXObject());
+        }
+
+        assertThrows(JAXBException.class, () -> reader.readGeneric(generateTestFile("invalidContent_2.15").toPath()));
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void generalizeLazily() throws Exception {
+        System.out.println("\nGeneralizing lazily");
+        System.out.println("-------------------");
+
+        CAEXReader reader = new CAEXReader();
+
+        for (String key : List.of("goodVersion_2.15", "goodVersion_3.0", "filterTest1", "library_2.15")) {
+            CAEXFile caexFile = reader.read(generateTestFile(key).toPath());
+
+            assertSameShape(caexFile.generalize(), GenericCAEXObject.from(caexFile, true), key);
+        }
+
+        CAEXFile caexFile = reader.read(generateTestFile("filterTest1").toPath());
+        GenericCAEXObject root = GenericCAEXObject.from(caexFile, true);
+
+        // Groups are generalized once, later calls return the same objects
+        Object instanceHierarchies = root.getChildren("InstanceHierarchy");
+
+        assertEquals(instanceHierarchies, root.getChildren("InstanceHierarchy"));
+        assertEquals(instanceHierarchies, root.getChildren().get("InstanceHierarchy"));
+        assertSame(root, ((GenericCAEXObject) ((List<?>) instanceHierarchies).get(0)).getParent());
+        assertNull(root.getChildren("NoSuchElement"));
+        assertThrows(UnsupportedOperationException.class, () -> root.getAttributes().put("FileName", "Other.aml"));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) root.getChildren("InstanceHierarchy")).clear());
+
+        assertEquals(
+                CAEXFilter.forObject(caexFile).all().element("InternalElement").execute().size(),
+                CAEXFilter.forObject(caexFile, true).all().element("InternalElement").execute().size());
+        assertEquals(
+                CAEXFilter.forObject(caexFile).children().element("InstanceHierarchy").execute().size(),
+                CAEXFilter.forObject(caexFile, true).children().element("InstanceHierarchy").execute().size());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void generalizeInParallel() throws Exception {
+        System.out.println("\nGeneralizing in parallel");
+        System.out.println("------------------------");
+
+        // Enough internal elements on two levels to be split into several tasks
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+                .append("<CAEXFile FileName=\"Parallel.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\">");
+
+        for (int i = 0; i < 3 * GenericCAEXObject.PARALLEL_THRESHOLD; i++) {
+            sb.append("<InternalElement ID=\"IE_").append(i).append("\" Name=\"IE_").append(i).append("\">");
+
+            for (int j = 0; j < GenericCAEXObject.PARALLEL_THRESHOLD + 1; j++) {
+                sb.append("<InternalElement ID=\"IE_").append(i).append("_").append(j).append("\" Name=\"IE_").append(j).append("\"/>");
+            }
+
+            sb.append("</InternalElement>");
+        }
+
+        sb.append("</InstanceHierarchy></CAEXFile>");
+
+        CAEXFile caexFile = new CAEXReader().withValidationMode(ValidationMode.NONE).read(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            assertSameShape(caexFile.generalize(), GenericCAEXObject.from(caexFile, pool), "parallel");
+
+            CAEXFile filterTest1 = new CAEXReader().read(generateTestFile("filterTest1").toPath());
+            assertSameShape(filterTest1.generalize(), GenericCAEXObject.from(filterTest1, pool), "filterTest1");
+        } finally {
+            pool.shutdown();
+        }
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void reuseGeneralizedModel() throws Exception {
+        System.out.println("\nReusing generalized models");
+        System.out.println("--------------------------");
+
+        CAEXFile caexFile = new CAEXReader().read(generateTestFile("filterTest1").toPath());
+
+        // Without a loaded model every call generalizes the file again
+        assertNotSame(caexFile.generalize(), caexFile.generalize());
+
+        List<GenericCAEXObject> first;
+
+        try (CAEXModel model = CAEXModel.load(caexFile)) {
+            assertSame(model, CAEXModel.load(caexFile));
+            assertSame(model.getRoot(), caexFile.generalize());
+            assertNotSame(model.getRoot(), GenericCAEXObject.from(caexFile));
+
+            // The tree is generalized lazily
+            assertEquals(1, model.size());
+
+            // Filters of the file and of objects inside it share the generic tree
+            first = CAEXFilter.forObject(caexFile).all().element("InternalElement").execute();
+            List<GenericCAEXObject> second = CAEXFilter.forObject(caexFile, true).all().element("InternalElement").execute();
+
+            assertFalse(first.isEmpty());
+            assertEquals(first.size(), second.size());
+
+            for (int i = 0; i < first.size(); i++) {
+                InternalElement ie = (InternalElement) first.get(i).getSourceCAEXObject();
+
+                assertSame(first.get(i), second.get(i));
+                assertSame(first.get(i), ie.generalize());
+                assertSame(first.get(i), model.generalize(ie));
+            }
+
+            // Filters of an inner object search the subtree of the model
+            InternalElement inner = (InternalElement) first.get(0).getSourceCAEXObject();
+
+            for (GenericCAEXObject obj : CAEXFilter.forObject(inner, false).all().element("Attribute").execute()) {
+                GenericCAEXObject top = obj;
+
+                while (top.getParent() != null) {
+                    top = top.getParent();
+                }
+
+                assertSame(model.getRoot(), top);
+            }
+
+            assertNull(model.generalize(new InternalElement()));
+            assertNotNull(new InternalElement().generalize());
+        }
+
+        // Objects of a file loaded in a new model are found without generalizing the tree first
+        InternalElement ie = (InternalElement) first.get(first.size() - 1).getSourceCAEXObject();
+
+        try (CAEXModel model = CAEXModel.load(caexFile)) {
+            GenericCAEXObject generic = ie.generalize();
+
+            assertSame(ie, generic.getSourceCAEXObject());
+            assertNotSame(first.get(first.size() - 1), generic);
+            assertSame(generic, model.generalize(ie));
+        }
+
+        // Closed models aren't used any more
+        assertNotSame(caexFile.generalize(), caexFile.generalize());
+        assertNotSame(ie.generalize(), ie.generalize());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void traverseTree() throws Exception {
+        System.out.println("\nTraversing generic object trees");
+        System.out.println("-------------------------------");
+
+        GenericCAEXObject root = new CAEXReader().read(generateTestFile("filterTest1").toPath()).generalize();
+
+        List<GenericCAEXObject> preOrder = new ArrayList<>();
+        root.preOrderIterator().forEachRemaining(preOrder::add);
+
+        List<GenericCAEXObject> postOrder = new ArrayList<>();
+        root.postOrderIterator().forEachRemaining(postOrder::add);
+
+        assertSame(root, preOrder.get(0));
+        assertSame(root, postOrder.get(postOrder.size() - 1));
+        assertEquals(preOrder.size(), postOrder.size());
+        assertEquals(Set.copyOf(preOrder), Set.copyOf(postOrder));
+
+        for (GenericCAEXObject obj : preOrder) {
+            if (obj.getParent() != null) {
+                assertTrue(preOrder.indexOf(obj.getParent()) < preOrder.indexOf(obj));
+                assertTrue(postOrder.indexOf(obj.getParent()) > postOrder.indexOf(obj));
+            }
+        }
+
+        // Descendants are streamed in pre-order, sequentially and in parallel
+        assertEquals(preOrder.subList(1, preOrder.size()), root.descendants().collect(Collectors.toList()));
+        assertEquals(preOrder.subList(1, preOrder.size()), root.descendants().parallel().collect(Collectors.toList()));
+
+        // Objects of skipped subtrees aren't visited
+        List<GenericCAEXObject> visited = new ArrayList<>();
+        assertTrue(root.walk(obj -> {
+            visited.add(obj);
+            return "InternalElement".equals(obj.getElementName()) ? CAEXVisitor.Result.SKIP_SUBTREE : CAEXVisitor.Result.CONTINUE;
+        }));
+
+        assertTrue(visited.stream().noneMatch(obj -> obj.getParent() != null && "InternalElement".equals(obj.getParent().getElementName())));
+        assertTrue(visited.size() < preOrder.size());
+
+        visited.clear();
+        assertFalse(root.walk(obj -> {
+            visited.add(obj);
+            return visited.size() == 3 ? CAEXVisitor.Result.STOP : CAEXVisitor.Result.CONTINUE;
+        }));
+
+        assertEquals(preOrder.subList(0, 3), visited);
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void keepDocumentOrder() throws Exception {
+        System.out.println("\nKeeping document order");
+        System.out.println("----------------------");
+
+        CAEXReader reader = new CAEXReader();
+        Path path = generateTestFile("filterTest1").toPath();
+        CAEXFile caexFile = reader.read(path);
+
+        for (GenericCAEXObject root : List.of(caexFile.generalize(), GenericCAEXObject.from(caexFile, true), reader.readGeneric(path))) {
+            root.preOrderIterator().forEachRemaining(obj -> {
+                List<GenericCAEXObject> children = new ArrayList<>();
+
+                // Child groups in schema order, children in list order
+                obj.getChildren().values().forEach(val -> {
+                    if (val instanceof GenericCAEXObject) {
+                        children.add((GenericCAEXObject) val);
+                    } else if (val instanceof List) {
+                        ((List<?>) val).forEach(item -> children.add((GenericCAEXObject) item));
+                    }
+                });
+
+                assertEquals(children.size(), obj.childCount());
+
+                for (int i = 0; i < children.size(); i++) {
+                    assertSame(children.get(i), obj.childAt(i));
+                    assertEquals(i, obj.childAt(i).indexInParent());
+                }
+
+                assertThrows(IndexOutOfBoundsException.class, () -> obj.childAt(children.size()));
+
+                if ("InternalElement".equals(obj.getElementName())) {
+                    List<String> groups = new ArrayList<>(obj.getChildren().keySet());
+                    groups.retainAll(List.of("Attribute", "ExternalInterface", "InternalElement", "SupportedRoleClass"));
+
+                    List<String> expected = new ArrayList<>(List.of("Attribute", "ExternalInterface", "InternalElement", "SupportedRoleClass"));
+                    expected.retainAll(groups);
+
+                    assertEquals(expected, groups);
+                }
+            });
+
+            assertEquals(-1, root.indexInParent());
+        }
+
+        // Deep search results come in document order
+        GenericCAEXObject generic = caexFile.generalize();
+        List<GenericCAEXObject> preOrder = new ArrayList<>();
+        generic.preOrderIterator().forEachRemaining(obj -> {
+            if ("InternalElement".equals(obj.getElementName())) {
+                preOrder.add(obj);
+            }
+        });
+
+        assertEquals(preOrder, CAEXFilter.forObject(generic).all().element("InternalElement").execute());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void readTypedAttributeValues() throws Exception {
+        System.out.println("\nReading typed attribute values");
+        System.out.println("------------------------------");
+
+        String template = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<CAEXFile FileName=\"Typed.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\">" +
+                "<InternalElement ID=\"IE_1\" Name=\"IE_1\">" +
+                "<Attribute Name=\"Number\" AttributeDataType=\"xs:int\"><DefaultValue>1</DefaultValue><Value>%s</Value></Attribute>" +
+                "<Attribute Name=\"Ratio\" AttributeDataType=\"xs:double\"><Value>0.25</Value></Attribute>" +
+                "<Attribute Name=\"Enabled\" AttributeDataType=\"xs:boolean\"><Value>true</Value></Attribute>" +
+                "<Attribute Name=\"Created\" AttributeDataType=\"xs:dateTime\"><Value>1970-01-01T00:00:01Z</Value></Attribute>" +
+                "<Attribute Name=\"Type\" AttributeDataType=\"xs:string\"><Value>Digital</Value></Attribute>" +
+                "<Attribute Name=\"Empty\" AttributeDataType=\"xs:int\"/>" +
+                "</InternalElement></InstanceHierarchy></CAEXFile>";
+
+        CAEXReader reader = new CAEXReader().withValidationMode(ValidationMode.NONE).withTypedAttributeValues(true);
+        org.fd.jcaex.v2_15.CAEXFile caexFile = (org.fd.jcaex.v2_15.CAEXFile) reader.read(new ByteArrayInputStream(String.format(template, "12").getBytes(StandardCharsets.UTF_8)));
+        List<org.fd.jcaex.v2_15.Attribute> attributes = caexFile.getInstanceHierarchies().get(0).getInternalElements().get(0).getAttributes();
+
+        assertEquals(AttributeValue.Type.INTEGER, attributes.get(0).getTypedValue().getType());
+        assertEquals(12, attributes.get(0).getTypedValue().getIntValue());
+        assertEquals(1, attributes.get(0).getTypedDefaultValue().getIntValue());
+        assertEquals(0.25, attributes.get(1).getTypedValue().getDoubleValue());
+        assertTrue(attributes.get(2).getTypedValue().getBooleanValue());
+        assertEquals(1000L, attributes.get(3).getTypedValue().getDateTimeValue());
+        assertEquals("Digital", attributes.get(4).getTypedValue().getText());
+        assertNull(attributes.get(5).getTypedValue());
+        assertThrows(IllegalStateException.class, () -> attributes.get(4).getTypedValue().getIntValue());
+
+        // Invalid values fail the read
+        CAEXFileParseException e = assertThrows(CAEXFileParseException.class,
+                () -> reader.read(new ByteArrayInputStream(String.format(template, "twelve").getBytes(StandardCharsets.UTF_8))));
+        System.out.println(e.getMessage());
+        assertTrue(e.getMessage().contains("Number"));
+
+        // Values of unbounded integer types may not fit into a long, they are kept as text
+        String unbounded = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<CAEXFile FileName=\"Typed.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\">" +
+                "<InternalElement ID=\"IE_1\" Name=\"IE_1\">" +
+                "<Attribute Name=\"Max\" AttributeDataType=\"xs:unsignedLong\"><Value>18446744073709551615</Value></Attribute>" +
+                "<Attribute Name=\"Big\" AttributeDataType=\"xs:integer\"><Value>-99999999999999999999</Value></Attribute>" +
+                "<Attribute Name=\"Count\" AttributeDataType=\"xs:unsignedInt\"><Value>4294967295</Value></Attribute>" +
+                "<Attribute Name=\"Amount\" AttributeDataType=\"xs:decimal\"><Value>12345678901234567.1</Value></Attribute>" +
+                "</InternalElement></InstanceHierarchy></CAEXFile>";
+        List<org.fd.jcaex.v2_15.Attribute> unboundedAttributes = ((org.fd.jcaex.v2_15.CAEXFile) reader.read(new ByteArrayInputStream(unbounded.getBytes(StandardCharsets.UTF_8))))
+                .getInstanceHierarchies().get(0).getInternalElements().get(0).getAttributes();
+
+        assertEquals(AttributeValue.Type.STRING, unboundedAttributes.get(0).getTypedValue().getType());
+        assertEquals("18446744073709551615", unboundedAttributes.get(0).getTypedValue().getText());
+        assertEquals(AttributeValue.Type.STRING, unboundedAttributes.get(1).getTypedValue().getType());
+        assertEquals(4294967295L, unboundedAttributes.get(2).getTypedValue().getLongValue());
+
+        // Decimal values are kept as text as well, they may not be exact as a double
+        assertEquals(AttributeValue.Type.STRING, unboundedAttributes.get(3).getTypedValue().getType());
+        assertEquals(new BigDecimal("12345678901234567.1"), new BigDecimal(unboundedAttributes.get(3).getTypedValue().getText()));
+
+        // Values aren't parsed by default
+        org.fd.jcaex.v2_15.CAEXFile untyped = (org.fd.jcaex.v2_15.CAEXFile) new CAEXReader().withValidationMode(ValidationMode.NONE)
+                .read(new ByteArrayInputStream(String.format(template, "twelve").getBytes(StandardCharsets.UTF_8)));
+        assertNull(untyped.getInstanceHierarchies().get(0).getInternalElements().get(0).getAttributes().get(0).getTypedValue());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void hashStructure() throws Exception {
+        System.out.println("\nHashing structure");
+        System.out.println("-----------------");
+
+        String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<CAEXFile FileName=\"Hash.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\">" +
+                "<InternalElement Name=\"IE\"><Attribute Name=\"Number\"><Value>1</Value></Attribute></InternalElement>" +
+                "<InternalElement Name=\"IE\"><Attribute Name=\"Number\"><Value>1</Value></Attribute></InternalElement>" +
+                "<InternalElement Name=\"IE\"><Attribute Name=\"Number\"><Value>2</Value></Attribute></InternalElement>" +
+                "</InstanceHierarchy></CAEXFile>";
+
+        CAEXReader reader = new CAEXReader().withValidationMode(ValidationMode.NONE);
+        GenericCAEXObject root = reader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).generalize();
+        List<?> internalElements = (List<?>) ((GenericCAEXObject) ((List<?>) root.getChildren("InstanceHierarchy")).get(0)).getChildren("InternalElement");
+
+        // Same structure and values, same hash
+        assertEquals(((GenericCAEXObject) internalElements.get(0)).structuralHash(), ((GenericCAEXObject) internalElements.get(1)).structuralHash());
+        assertNotEquals(((GenericCAEXObject) internalElements.get(0)).structuralHash(), ((GenericCAEXObject) internalElements.get(2)).structuralHash());
+
+        // Hashes don't depend on how the tree was built
+        Path path = generateTestFile("filterTest1").toPath();
+        long hash = reader.read(path).generalize().structuralHash();
+
+        assertEquals(hash, reader.read(path).generalize().structuralHash());
+        assertEquals(hash, GenericCAEXObject.from(reader.read(path), true).structuralHash());
+        assertEquals(hash, reader.readGeneric(path).structuralHash());
+        assertNotEquals(hash, root.structuralHash());
+
+        // Header elements are hashed by their content
+        String header = "<Description>hello</Description><Version>1.0</Version><Copyright ChangeMode=\"state\">ACME</Copyright>";
+        String headerXml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<CAEXFile FileName=\"Hash.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\">" +
+                "<InternalElement Name=\"IE\" ID=\"1\">" + header + "</InternalElement>" +
+                "<InternalElement Name=\"IE\" ID=\"1\">" + header + "</InternalElement>" +
+                "<InternalElement Name=\"IE\" ID=\"1\">" + header.replace("hello", "bye") + "</InternalElement>" +
+                "</InstanceHierarchy></CAEXFile>";
+        Path headerPath = Files.writeString(path.resolveSibling(TESTFILE_PREFIX + "hashHeader.aml"), headerXml, StandardCharsets.UTF_8);
+        GenericCAEXObject headerRoot = reader.read(headerPath).generalize();
+        List<?> headerElements = (List<?>) ((GenericCAEXObject) ((List<?>) headerRoot.getChildren("InstanceHierarchy")).get(0)).getChildren("InternalElement");
+
+        assertEquals(((GenericCAEXObject) headerElements.get(0)).structuralHash(), ((GenericCAEXObject) headerElements.get(1)).structuralHash());
+        assertNotEquals(((GenericCAEXObject) headerElements.get(0)).structuralHash(), ((GenericCAEXObject) headerElements.get(2)).structuralHash());
+        assertEquals(headerRoot.structuralHash(), reader.read(headerPath).generalize().structuralHash());
+        assertEquals(headerRoot.structuralHash(), reader.readGeneric(headerPath).structuralHash());
+
+        // Hashes don't depend on the documents read before, which decide the order of the interned names
+        long fresh = hashInFreshLoader(path, null);
+
+        assertEquals(hash, fresh);
+        assertEquals(fresh, hashInFreshLoader(path, generateTestFile("library_2.15").toPath()));
+        assertEquals(fresh, hashInFreshLoader(path, generateTestFile("externalReference_2.15").toPath()));
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void readColumnarModel() throws Exception {
+        System.out.println("\nReading columnar models");
+        System.out.println("-----------------------");
+
+        CAEXReader reader = new CAEXReader();
+        Path path = generateTestFile("filterTest1").toPath();
+        GenericCAEXObject root = reader.readGeneric(path);
+        ColumnarCAEXModel model = reader.readColumnar(path);
+
+        System.out.println(model);
+
+        // Nodes are numbered in pre-order, like the generic objects are iterated
+        List<GenericCAEXObject> preOrder = new ArrayList<>();
+        root.preOrderIterator().forEachRemaining(preOrder::add);
+        assertEquals(preOrder.size(), model.size());
+
+        ColumnarCAEXModel.Cursor cursor = model.cursor();
+
+        for (int i = 0; i < preOrder.size(); i++) {
+            GenericCAEXObject obj = preOrder.get(i);
+            cursor.moveTo(i);
+
+            assertEquals(obj.getElementName(), cursor.getElementName());
+            assertEquals(obj.getAttribute("Name"), cursor.getAttribute("Name"));
+            assertEquals(obj.childCount(), cursor.childCount());
+            assertEquals(i + (int) obj.descendants().count() + 1, cursor.subtreeEnd());
+
+            if ("Attribute".equals(obj.getElementName())) {
+                assertEquals(obj.getChildren("Value"), cursor.getValue("Value"));
+            }
+
+            if (cursor.moveToParent()) {
+                assertSame(obj.getParent(), preOrder.get(cursor.node()));
+            } else {
+                assertNull(obj.getParent());
+            }
+        }
+
+        // Cursor navigation
+        cursor = model.cursor();
+        assertFalse(cursor.moveToParent());
+        assertTrue(cursor.moveToFirstChild());
+        assertSame(root.childAt(0), preOrder.get(cursor.node()));
+
+        if (root.childCount() > 1) {
+            assertTrue(cursor.moveToNextSibling());
+            assertSame(root.childAt(1), preOrder.get(cursor.node()));
+        }
+
+        assertThrows(IndexOutOfBoundsException.class, () -> model.cursor().moveTo(model.size()));
+
+        // Subtrees can be turned into generic objects and filtered
+        GenericCAEXObject ie = preOrder.stream().filter(obj -> "InternalElement".equals(obj.getElementName())).findFirst().orElseThrow();
+        GenericCAEXObject generic = model.cursor().moveTo(preOrder.indexOf(ie)).toGeneric();
+
+        assertEquals(ie.structuralHash(), generic.structuralHash());
+        assertEquals(CAEXFilter.forObject(ie).all().element("Attribute").execute().size(),
+                CAEXFilter.forObject(generic).all().element("Attribute").execute().size());
+
+        // Filters run on cursors directly and select the same nodes as on generic objects
+        for (String criteria : List.of("InternalElement", "Attribute[Name='Type']", "ExternalInterface[Name][ID]",
+                "InternalElement[Name='.*1'],ExternalInterface", "[Name='PLC_1']", "NoSuchElement")) {
+            for (boolean deepSearch : List.of(true, false)) {
+                for (GenericCAEXObject origin : List.of(root, ie)) {
+                    List<Integer> expected = CAEXFilter.applyFilter(origin, criteria, deepSearch).stream()
+                            .map(preOrder::indexOf).collect(Collectors.toList());
+                    List<ColumnarCAEXModel.Cursor> cursors = CAEXFilter.applyFilter(model.cursor().moveTo(preOrder.indexOf(origin)), criteria, deepSearch);
+
+                    assertEquals(expected, cursors.stream().map(ColumnarCAEXModel.Cursor::node).collect(Collectors.toList()), criteria);
+                }
+            }
+        }
+
+        ColumnarCAEXModel.Cursor ieCursor = model.cursor().moveTo(preOrder.indexOf(ie));
+
+        for (int i = 0; i < ie.childCount(); i++) {
+            assertSame(ie.childAt(i), preOrder.get(ieCursor.childAt(i).node()));
+        }
+
+        assertThrows(IndexOutOfBoundsException.class, () -> ieCursor.childAt(ie.childCount()));
+        assertEquals(ie.childrenNamed("Attribute").stream().map(preOrder::indexOf).collect(Collectors.toList()),
+                ieCursor.childrenNamed("Attribute").stream().map(ColumnarCAEXModel.Cursor::node).collect(Collectors.toList()));
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void compileFilterCriteria() throws Exception {
+        System.out.println("\nCompiling filter criteria");
+        System.out.println("-------------------------");
+
+        GenericCAEXObject root = new CAEXReader().read(generateTestFile("filterTest1").toPath()).generalize();
+        List<GenericCAEXObject> attributes = root.descendants().filter(obj -> "Attribute".equals(obj.getElementName())).collect(Collectors.toList());
+        List<GenericCAEXObject> typeAttributes = attributes.stream().filter(obj -> "Type".equals(obj.getAttribute("Name"))).collect(Collectors.toList());
+
+        // Compiled criteria select the same objects, in document order
+        FilterCriteria criteria = FilterCriteria.compile("Attribute[Name='Type']");
+        assertEquals("Attribute[Name='Type']", criteria.toString());
+        assertEquals(typeAttributes, CAEXFilter.applyFilter(root, criteria, true));
+        assertEquals(typeAttributes, CAEXFilter.applyFilter(root, "Attribute[Name='Type']", true));
+        assertEquals(typeAttributes, CAEXFilter.applyFilter(root, "Attribute[Name='[T]ype'][Name]", true));
+
+        for (String str : List.of("InternalElement", "[Name]", "ExternalInterface,Attribute[Name='IoType']", "Attribute[Name='Ty.*'],InternalElement", "InternalElement[")) {
+            for (boolean deepSearch : new boolean[] { false, true }) {
+                assertEquals(CAEXFilter.applyFilter(root, str, deepSearch), CAEXFilter.applyFilter(root, FilterCriteria.compile(str), deepSearch));
+            }
+        }
+
+        // Criteria of element filters are compiled again when their attribute filters change
+        ElementFilter elementFilter = CAEXFilter.forObject(root).all().element("Attribute");
+        assertEquals(attributes, elementFilter.execute());
+
+        elementFilter.withAttr("Name='Type'");
+        assertEquals(typeAttributes, elementFilter.execute());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void matchAttributeValues() throws Exception {
+        System.out.println("\nMatching attribute values");
+        System.out.println("-------------------------");
+
+        List<String> names = List.of("Type", "TypeName", "IoType", "Type&#10;Name", "Type&#13;", "", "T", "Type.Name");
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+                .append("<CAEXFile FileName=\"Match.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\"><InternalElement Name=\"IE\">");
+
+        names.forEach(name -> sb.append("<Attribute Name=\"").append(name).append("\"/>"));
+        sb.append("</InternalElement></InstanceHierarchy></CAEXFile>");
+
+        GenericCAEXObject root = new CAEXReader().withValidationMode(ValidationMode.NONE).read(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8))).generalize();
+        List<GenericCAEXObject> attributes = root.descendants().filter(obj -> "Attribute".equals(obj.getElementName())).collect(Collectors.toList());
+
+        assertEquals(names.size(), attributes.size());
+
+        // Literals, prefixes, suffixes and real patterns match the same values as String.matches()
+        for (String regex : List.of("Type", "", "Type.*", "Type.+", ".*Type", ".+Type", ".*", ".+", "Type\\.Name", "Type.Name", "T[a-z]+", "Typ(e|eName)")) {
+            List<GenericCAEXObject> expected = attributes.stream().filter(obj -> ((String) obj.getAttribute("Name")).matches(regex)).collect(Collectors.toList());
+
+            assertEquals(expected, CAEXFilter.applyFilter(root, "Attribute[Name='" + regex + "']", true), regex);
+        }
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void indexElementNames() throws Exception {
+        System.out.println("\nIndexing element names");
+        System.out.println("----------------------");
+
+        CAEXFile caexFile = new CAEXReader().read(generateTestFile("filterTest1").toPath());
+        GenericCAEXObject generic = caexFile.generalize();
+        CAEXFilter filter = CAEXFilter.forObject(generic);
+        CAEXFilter indexedFilter = CAEXFilter.forObject(generic).withElementIndex();
+
+        assertEquals(0, indexedFilter.getElementIndexBytes());
+
+        // Deep searches give the same results with the index, also on descendants of the origin
+        assertEquals(filter.all().element("ExternalInterface").execute(), indexedFilter.all().element("ExternalInterface").execute());
+        assertTrue(indexedFilter.getElementIndexBytes() > 0);
+
+        assertEquals(filter.clear().all().element("Attribute", "Name='Type'").execute(),
+                indexedFilter.clear().all().element("Attribute", "Name='Type'").execute());
+        List<GenericCAEXObject> expected = filter.clear().all().element("InternalElement").havingAll().element("Attribute", "Name='Type'").execute();
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, indexedFilter.clear().all().element("InternalElement").havingAll().element("Attribute", "Name='Type'").execute());
+        assertEquals(filter.clear().all().element("NoSuchElement").execute(), indexedFilter.clear().all().element("NoSuchElement").execute());
+
+        System.out.println("Element index: " + indexedFilter.getElementIndexBytes() + " bytes");
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void combineAndFilters() throws Exception {
+        System.out.println("\nCombining filters with AND");
+        System.out.println("--------------------------");
+
+        String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<CAEXFile FileName=\"And.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\">" +
+                "<InternalElement Name=\"A\"><Attribute Name=\"Type\"/><Attribute Name=\"Type\"/><Attribute Name=\"IoType\"/></InternalElement>" +
+                "<InternalElement Name=\"B\"><Attribute Name=\"Type\"/></InternalElement>" +
+                "<InternalElement Name=\"C\"><Attribute Name=\"IoType\"/><Attribute Name=\"IoType\"/><Attribute Name=\"Type\"/></InternalElement>" +
+                "</InstanceHierarchy></CAEXFile>";
+
+        GenericCAEXObject root = new CAEXReader().withValidationMode(ValidationMode.NONE)
+                .read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).generalize();
+        CAEXFilter filter = CAEXFilter.forObject(root);
+        List<GenericCAEXObject> internalElements = filter.all().element("InternalElement").execute();
+        List<GenericCAEXObject> a = attributesOf(internalElements.get(0));
+        List<GenericCAEXObject> b = attributesOf(internalElements.get(1));
+        List<GenericCAEXObject> c = attributesOf(internalElements.get(2));
+
+        // Sibling results are combined by their parents, keeping the smaller side in its order with its duplicate parents
+        assertEquals(List.of(a.get(2), c.get(0), c.get(1)), filter.clear().all().element("InternalElement")
+                .havingChild().element("Attribute", "Name='Type'").and().element("Attribute", "Name='IoType'").execute());
+        assertEquals(List.of(a.get(0), a.get(1), b.get(0), c.get(2)), filter.clear().all().element("InternalElement")
+                .havingChild().element("Attribute", "Name='Type'").and().element("Attribute").execute());
+
+        // Below the first level the results themselves are combined, keeping the left side in its order
+        assertEquals(List.of(internalElements.get(0), internalElements.get(0), internalElements.get(1), internalElements.get(2)),
+                filter.clear().children().element("InstanceHierarchy")
+                        .havingChild().element("InternalElement")
+                        .havingChild().element("Attribute").and().element("Attribute", "Name='Type'").execute());
+        assertEquals(List.of(), filter.clear().children().element("InstanceHierarchy")
+                .havingChild().element("InternalElement")
+                .havingChild().element("Attribute", "Name='Type'").and().element("Attribute", "Name='IoType'").execute());
+
+        System.out.println("OK\n\n");
+    }
+
+    @Test
+    public void searchInSinglePass() throws Exception {
+        System.out.println("\nDeep search in a single pass");
+        System.out.println("----------------------------");
+
+        String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<CAEXFile FileName=\"Deep.aml\" SchemaVersion=\"2.15\"><InstanceHierarchy Name=\"IH\">" +
+                "<InternalElement Name=\"A1\"><ExternalInterface Name=\"E1\"/>" +
+                "<InternalElement Name=\"B1\"><ExternalInterface Name=\"E2\"/>" +
+                "<InternalElement Name=\"A2\"><ExternalInterface Name=\"E3\"/></InternalElement></InternalElement>" +
+                "<InternalElement Name=\"A3\"/></InternalElement>" +
+                "<InternalElement Name=\"B2\"><ExternalInterface Name=\"E4\"/><InternalElement Name=\"A4\"/></InternalElement>" +
+                "</InstanceHierarchy></CAEXFile>";
+
+        GenericCAEXObject root = new CAEXReader().withValidationMode(ValidationMode.NONE)
+                .read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).generalize();
+
+        List<GenericCAEXObject> internalElements = CAEXFilter.applyFilter(root, "InternalElement", true);
+        List<GenericCAEXObject> externalInterfaces = CAEXFilter.applyFilter(root, "ExternalInterface", true);
+
+        // Results come in document order
+        assertEquals(List.of("A1", "B1", "A2", "A3", "B2", "A4"),
+                internalElements.stream().map(obj -> obj.getAttribute("Name")).collect(Collectors.toList()));
+        assertEquals(List.of("E1", "E2", "E3", "E4"),
+                externalInterfaces.stream().map(obj -> obj.getAttribute("Name")).collect(Collectors.toList()));
+
+        // Criteria with several alternatives are evaluated level by level, which may find objects more than once
+        assertEquals(distinct(CAEXFilter.applyFilter(root, "InternalElement,NoSuchElement", true)), internalElements);
+        assertEquals(distinct(CAEXFilter.applyFilter(root, "ExternalInterface,NoSuchElement", true)), externalInterfaces);
+        assertEquals(distinct(CAEXFilter.applyFilter(root, "InternalElement[Name='A.*'],NoSuchElement", true)),
+                CAEXFilter.applyFilter(root, "InternalElement[Name='A.*']", true));
+        assertEquals(List.of("A1", "A2", "A3", "A4"), CAEXFilter.applyFilter(root, "InternalElement[Name='A.*']", true).stream()
+                .map(obj -> obj.getAttribute("Name")).collect(Collectors.toList()));
+
+        System.out.println("OK\n\n");
+    }
+
+    /**
+     * Removes repeated objects from a list, keeping the first occurrences. Objects are compared by identity.
+     */
+    static List<GenericCAEXObject> distinct(List<GenericCAEXObject> objects) {
+        List<GenericCAEXObject> res = new ArrayList<>();
+
+        for (GenericCAEXObject obj : objects) {
+            if (res.stream().noneMatch(r -> r == obj)) {
+                res.add(obj);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets the Attribute children of a generic object in document order.
+     */
+    static List<GenericCAEXObject> attributesOf(GenericCAEXObject obj) {
+        return CAEXFilter.forObject(obj).children().element("Attribute").execute();
+    }
+
+    /**
+     * Reads a document and computes its structural hash in a class loader of its own, so that the model starts
+     * with empty symbol tables, like in a new JVM.
+     */
+    static long hashInFreshLoader(Path path, Path readBefore) throws Exception {
+        URL[] urls = Stream.of(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> {
+                    try {
+                        return Path.of(entry).toUri().toURL();
+                    } catch (MalformedURLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toArray(URL[]::new);
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+
+        try (URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader())) {
+            Thread.currentThread().setContextClassLoader(loader);
+
+            Class<?> readerClass = loader.loadClass(CAEXReader.class.getName());
+            Object reader = readerClass.getConstructor().newInstance();
+
+            if (readBefore != null) {
+                readerClass.getMethod("readGeneric", Path.class).invoke(reader, readBefore);
+            }
+
+            Object caexFile = readerClass.getMethod("read", Path.class).invoke(reader, path);
+            Object root = loader.loadClass(GeneralizableCAEXObject.class.getName()).getMethod("generalize").invoke(caexFile);
+
+            return (long) root.getClass().getMethod("structuralHash").invoke(root);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextLoader);
+        }
+    }
+
+    /**
+     * Asserts that two generic trees have the same element names, attributes and children.
+     */
+    static void assertSameShape(GenericCAEXObject expected, GenericCAEXObject actual, String path) {
+        assertEquals(expected.getElementName(), actual.getElementName(), path);
+        assertEquals(expected.getAttributes(), actual.getAttributes(), path);
+        assertEquals(expected.getChildren().keySet(), actual.getChildren().keySet(), path);
+
+        expected.getChildren().forEach((key, val) -> {
+            Object actualVal = actual.getChildren(key);
+
+            if (val instanceof List) {
+                assertEquals(((List<?>) val).size(), ((List<?>) actualVal).size(), path + "/" + key);
+
+                for (int i = 0; i < ((List<?>) val).size(); i++) {
+                    assertSame(actual, ((GenericCAEXObject) ((List<?>) actualVal).get(i)).getParent(), path + "/" + key + "[" + i + "]");
+                    assertSameShape((GenericCAEXObject) ((List<?>) val).get(i), (GenericCAEXObject) ((List<?>) actualVal).get(i), path + "/" + key + "[" + i + "]");
+                }
+            } else if (val instanceof GenericCAEXObject) {
+                assertSame(actual, ((GenericCAEXObject) actualVal).getParent(), path + "/" + key);
+                assertSameShape((GenericCAEXObject) val, (GenericCAEXObject) actualVal, path + "/" + key);
+            } else if (val instanceof String) {
+                assertEquals(val, actualVal, path + "/" + key);
+            } else {
+                assertEquals(val.getClass(), actualVal.getClass(), path + "/" + key);
+            }
+        });
+    }
+
     @BeforeAll
     static void mkTestDir() {
         String testFilesDirPathStr = USER_HOME + (USER_HOME.endsWith(DIR_SEP) ? "" : DIR_SEP) + TESTFILE_DIR;